@@ -0,0 +1,80 @@
+package zhao.gravel.grammar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import zhao.gravel.grammar.core.model.AnalyticalModel;
+import zhao.gravel.grammar.core.model.Parser;
+import zhao.gravel.grammar.core.model.SpanParser;
+import zhao.gravel.grammar.core.model.TokenSpans;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每一种 AnalyticalModel 模式对应的解析器的基准测试，同时对比字符串数组与参数区间两种拆分方式。
+ * <p>
+ * Benchmark of the parser of every AnalyticalModel mode, comparing splitting into a string array with splitting into parameter spans.
+ *
+ * @author zhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class AnalyticalModelBenchmark {
+
+    /**
+     * 正则模式中使用的表达式，其中包含 7 个嵌套的组，因此 REGULAR_MODEL_1 到 REGULAR_MODEL_7 都会提取到每个参数。
+     */
+    private static final String GROUP_PATTERN = "(((((((\\S+)))))))";
+
+    @Param({
+            "CHARACTER_PATTERN", "REGULAR_MODEL",
+            "REGULAR_MODEL_1", "REGULAR_MODEL_2", "REGULAR_MODEL_3", "REGULAR_MODEL_4",
+            "REGULAR_MODEL_5", "REGULAR_MODEL_6", "REGULAR_MODEL_7"
+    })
+    public AnalyticalModel model;
+
+    @Param({"8", "64"})
+    public int tokens;
+
+    private Parser parser;
+    private String command;
+
+    @Setup
+    public void setup() {
+        switch (this.model) {
+            case CHARACTER_PATTERN:
+                this.parser = this.model.getParser(" ");
+                break;
+            case REGULAR_MODEL:
+                this.parser = this.model.getParser("\\s+");
+                break;
+            default:
+                this.parser = this.model.getParser(GROUP_PATTERN);
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.tokens; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append("token").append(i);
+        }
+        this.command = builder.toString();
+    }
+
+    @Benchmark
+    public String[] array() {
+        return this.parser.get(this.command);
+    }
+
+    @Benchmark
+    public int spans() {
+        final TokenSpans spans = TokenSpans.acquire();
+        try {
+            return ((SpanParser) this.parser).get(this.command, spans);
+        } finally {
+            spans.release();
+        }
+    }
+}
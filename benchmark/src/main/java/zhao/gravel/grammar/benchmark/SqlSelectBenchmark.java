@@ -0,0 +1,75 @@
+package zhao.gravel.grammar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import zhao.gravel.grammar.core.BuiltInGrammar;
+import zhao.gravel.grammar.core.BuiltInReg;
+import zhao.gravel.grammar.core.CommandCallback;
+import zhao.gravel.grammar.core.CompiledCallback;
+import zhao.gravel.grammar.core.model.AnalyticalModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用 BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1 解析 BuiltInGrammar.SQL_SELECT 命令的基准测试，包含单线程与多线程两种情况。
+ * <p>
+ * Benchmark of parsing BuiltInGrammar.SQL_SELECT commands with BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1, covering single-threaded and multi-threaded runs.
+ *
+ * @author zhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SqlSelectBenchmark {
+
+    @Param({
+            "select * from zhao;",
+            "select * from zhao where age=20;",
+            "select name, age from zhao where age=20 group by age order by name limit 10 20;",
+            "select * form zhao;"
+    })
+    public String command;
+
+    private CommandCallback callback;
+    private CompiledCallback compiled;
+
+    @Setup
+    public void setup() {
+        this.callback = CommandCallback.createGet(
+                BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1,
+                BuiltInGrammar.SQL_SELECT.get(
+                        hashMap -> hashMap.size(),
+                        hashMap -> hashMap.size(),
+                        hashMap -> hashMap.size(),
+                        hashMap -> hashMap.size(),
+                        hashMap -> hashMap.size()
+                )
+        );
+        this.callback.setAnalyticalModel(AnalyticalModel.REGULAR_MODEL_1);
+        this.compiled = this.callback.compile();
+    }
+
+    @Benchmark
+    public Object tree() {
+        return this.callback.run(this.command);
+    }
+
+    @Benchmark
+    public Object compiled() {
+        return this.compiled.run(this.command);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object treeContended() {
+        return this.callback.run(this.command);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object compiledContended() {
+        return this.compiled.run(this.command);
+    }
+}
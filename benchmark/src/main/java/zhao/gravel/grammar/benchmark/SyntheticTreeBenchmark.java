@@ -0,0 +1,105 @@
+package zhao.gravel.grammar.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.GrammarParam;
+import zhao.gravel.grammar.command.SaveParam;
+import zhao.gravel.grammar.command.Syntax;
+import zhao.gravel.grammar.core.CommandCallback;
+import zhao.gravel.grammar.core.CompiledCallback;
+import zhao.gravel.grammar.core.model.AnalyticalModel;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 使用人工构造的语法树进行的基准测试，语法树的深度、每层子语法的数量以及通配符参数的比例都是可以调整的。
+ * <p>
+ * Benchmark with synthetic syntax trees, in which the depth, the number of sub syntax objects per layer and the proportion of wildcard parameters are all adjustable.
+ *
+ * @author zhao
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class SyntheticTreeBenchmark {
+
+    @Param({"2", "8", "32"})
+    public int depth;
+
+    @Param({"2", "16", "128"})
+    public int fanOut;
+
+    /**
+     * 命令经过的每一层中使用通配符参数匹配的概率。
+     */
+    @Param({"0.0", "0.5", "1.0"})
+    public double wildcardDensity;
+
+    private CommandCallback callback;
+    private CompiledCallback compiled;
+    private String command;
+    private String[] tokens;
+
+    @Setup
+    public void setup() {
+        // 使用固定的随机种子 这样每次运行的语法树与命令都是一样的
+        final Random random = new Random(20230929L);
+        this.tokens = new String[this.depth + 2];
+        Syntax next = new ActuatorParam("run") {
+            @Override
+            public Object run() {
+                return Boolean.TRUE;
+            }
+        };
+        this.tokens[this.depth + 1] = "run";
+        for (int level = this.depth - 1; level >= 0; level--) {
+            final boolean wildcard = random.nextDouble() < this.wildcardDensity;
+            next = SaveParam.create(wildcard ? Syntax.WILDCARD : "p" + level, this.withSiblings(next, level + 1));
+            this.tokens[level + 1] = wildcard ? "v" + level : "p" + level;
+        }
+        this.tokens[0] = "root";
+        this.callback = CommandCallback.createGet("\\s+", SaveParam.create("root", this.withSiblings(next, 0)));
+        this.callback.setAnalyticalModel(AnalyticalModel.REGULAR_MODEL);
+        this.compiled = this.callback.compile();
+        this.command = String.join(" ", this.tokens);
+    }
+
+    /**
+     * @param child 命令会经过的子语法对象。
+     * @param level 子语法对象所在的层。
+     * @return 包含命令会经过的子语法对象以及 fanOut - 1 个不会被经过的兄弟语法对象的数组。
+     */
+    private Syntax[] withSiblings(Syntax child, int level) {
+        final Syntax[] children = new Syntax[this.fanOut];
+        children[0] = child;
+        for (int i = 1; i < this.fanOut; i++) {
+            children[i] = GrammarParam.create("d" + level + '_' + i);
+        }
+        return children;
+    }
+
+    @Benchmark
+    public Object walk() {
+        return this.callback.run(this.tokens);
+    }
+
+    @Benchmark
+    public Object parseAndWalk() {
+        return this.callback.run(this.command);
+    }
+
+    @Benchmark
+    public Object compiledWalk() {
+        return this.compiled.run(this.tokens);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object parseAndWalkContended() {
+        return this.callback.run(this.command);
+    }
+}
@@ -0,0 +1,38 @@
+package zhao.gravel.grammar.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 命令注解，被此注解标记的函数会在编译的时候被 CommandProcessor 处理，生成对应的语法树以及直接调用此函数的分发器，运行时不需要使用反射。
+ * <p>
+ * Command annotation. Methods marked by this annotation are processed by CommandProcessor at compile time, which generates the corresponding syntax tree and a dispatcher that calls the method directly, so no reflection is needed at runtime.
+ * <p>
+ * PS：命令使用空白字符分隔参数，"*" 代表通配符参数，通配符捕获到的数值会以它前面的关键字做为变量名称保存，例如 "get data *" 中的通配符会被保存为变量 data，函数中名称相同（或者使用 Var 指定了名称）的参数会接收到此变量。
+ *
+ * @author zhao
+ * @see CommandProcessor
+ * @see Var
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface Command {
+
+    /**
+     * @return 命令的格式，例如 "get data *"。
+     * <p>
+     * The format of the command, such as "get data *".
+     */
+    String value();
+
+    /**
+     * @return 命令执行器的帮助信息。
+     * <p>
+     * The help information of the command executor.
+     */
+    String help() default "";
+}
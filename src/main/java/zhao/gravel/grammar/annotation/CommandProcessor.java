@@ -0,0 +1,430 @@
+package zhao.gravel.grammar.annotation;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 命令注解处理器，其会在编译的时候为每个包含 Command 函数的类生成一个名为 "类名_Commands" 的类，其中包含由所有命令合并而成的语法树，以及使用 switch 直接调用命令函数的分发器。
+ * <p>
+ * Command annotation processor. At compile time, it generates a class named "ClassName_Commands" for each class containing Command methods, which contains the syntax tree merged from all commands and a dispatcher that calls the command methods directly with a switch.
+ * <p>
+ * PS：生成的语法树中所有的执行器都是同一个 final 类的对象，并且捕获到的变量会通过类型化的访问函数直接绑定到函数参数上，因此执行器的调用点是单态的，JIT 可以内联整个分发过程。
+ *
+ * @author zhao
+ * @see Command
+ */
+@SupportedAnnotationTypes({"zhao.gravel.grammar.annotation.Command", "zhao.gravel.grammar.annotation.Var"})
+public final class CommandProcessor extends AbstractProcessor {
+
+    private static final String WILDCARD = "*";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // 按照所在的类对命令函数进行分组 每个类生成一个命令类
+        final LinkedHashMap<TypeElement, List<ExecutableElement>> groups = new LinkedHashMap<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(Command.class)) {
+            final ExecutableElement method = (ExecutableElement) element;
+            groups.computeIfAbsent((TypeElement) method.getEnclosingElement(), k -> new ArrayList<>()).add(method);
+        }
+        // Var 只有在命令函数的参数上才有意义 其它位置的 Var 不会被任何代码读取
+        for (Element element : roundEnv.getElementsAnnotatedWith(Var.class)) {
+            if (element.getEnclosingElement().getAnnotation(Command.class) == null) {
+                this.error(element, "Var can only be used on the parameters of Command methods.");
+            }
+        }
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : groups.entrySet()) {
+            final TypeElement type = entry.getKey();
+            if (type.getNestingKind() != NestingKind.TOP_LEVEL && !type.getModifiers().contains(Modifier.STATIC)
+                    || type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.INTERFACE && type.getKind() != ElementKind.ENUM) {
+                this.error(type, "Command methods can only be declared in top level or static nested classes.");
+                continue;
+            }
+            final Node root = new Node(null, false);
+            final ArrayList<Endpoint> endpoints = new ArrayList<>();
+            boolean ok = true;
+            for (ExecutableElement method : entry.getValue()) {
+                ok &= this.add(root, method, endpoints);
+            }
+            if (ok && this.validate(root)) {
+                try {
+                    this.generate(type, root, endpoints);
+                } catch (IOException e) {
+                    this.error(type, "Unable to generate the command class: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void error(Element element, String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    /**
+     * 将一个命令函数合并到语法树中。
+     *
+     * @return 命令格式正确并且所有参数都能够被绑定的时候返回 true。
+     */
+    private boolean add(Node root, ExecutableElement method, ArrayList<Endpoint> endpoints) {
+        final Command command = method.getAnnotation(Command.class);
+        if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            this.error(method, "Command methods can not be private.");
+            return false;
+        }
+        final String[] tokens = command.value().trim().split("\\s+");
+        if (tokens.length == 0 || tokens[0].isEmpty()) {
+            this.error(method, "The command can not be empty.");
+            return false;
+        }
+        // 通配符前面的关键字就是变量名称
+        final LinkedHashMap<String, Node> captures = new LinkedHashMap<>();
+        Node now = root;
+        for (int i = 0; i < tokens.length; i++) {
+            final String token = tokens[i];
+            if (WILDCARD.equals(token)) {
+                if (now == root || now.wildcard) {
+                    this.error(method, "Each '*' in \"" + command.value() + "\" must follow a keyword, which is used as the variable name.");
+                    return false;
+                }
+                captures.put(now.name, now);
+                now = now.child(WILDCARD, true);
+            } else {
+                now = now.child(token.toLowerCase(Locale.ROOT), false);
+            }
+        }
+        if (now.endpoint != null) {
+            this.error(method, "The command \"" + command.value() + "\" is already defined by " + now.endpoint.method.getSimpleName() + "().");
+            return false;
+        }
+
+        final Endpoint endpoint = new Endpoint(method, endpoints.size(), command.help());
+        for (VariableElement parameter : method.getParameters()) {
+            final String access = accessorOf(parameter.asType());
+            if (access == null) {
+                this.error(parameter, "Unsupported command parameter type: " + parameter.asType());
+                return false;
+            }
+            if (access.startsWith("context") || access.startsWith("view")) {
+                endpoint.arguments.add(access);
+                continue;
+            }
+            final Var var = parameter.getAnnotation(Var.class);
+            final String name = (var == null ? parameter.getSimpleName().toString() : var.value()).toLowerCase(Locale.ROOT);
+            final Node capture = captures.get(name);
+            if (capture == null) {
+                this.error(parameter, "No variable named [" + name + "] is captured by \"" + command.value() + "\", captured: " + captures.keySet());
+                return false;
+            }
+            capture.declare(captureTypeOf(parameter.asType()));
+            endpoint.arguments.add("view." + access + "(\"" + escape(name) + "\")");
+        }
+        now.endpoint = endpoint;
+        endpoints.add(endpoint);
+        return true;
+    }
+
+    /**
+     * @return 一个语法对象不能同时是执行器与保存变量的参数，出现这种情况的时候返回 false。
+     */
+    private boolean validate(Node node) {
+        boolean ok = true;
+        if (node.endpoint != null && node.children.containsKey(WILDCARD)) {
+            this.error(node.endpoint.method, "The command ends at [" + node.name + "], which is followed by '*' in another command. Please use different keywords.");
+            ok = false;
+        }
+        for (Node child : node.children.values()) {
+            ok &= this.validate(child);
+        }
+        return ok;
+    }
+
+    /**
+     * @return 从变量视图或上下文中获取到指定类型参数的表达式，不支持的类型返回 null。
+     */
+    private static String accessorOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return "getInt";
+            case LONG:
+                return "getLong";
+            case DOUBLE:
+                return "getDouble";
+            case ARRAY:
+                return ((ArrayType) type).getComponentType().getKind() == TypeKind.LONG ? "getLongArray" : null;
+            case DECLARED:
+                break;
+            default:
+                return null;
+        }
+        final String name = erasure(type);
+        switch (name) {
+            case "java.lang.String":
+            case "java.lang.CharSequence":
+                return "getString";
+            case "java.lang.Integer":
+                return "getInt";
+            case "java.lang.Long":
+                return "getLong";
+            case "java.lang.Double":
+                return "getDouble";
+            case "java.util.List":
+                return "getList";
+            case "zhao.gravel.grammar.command.VariableContext":
+                return "context";
+            case "zhao.gravel.grammar.command.VariableView":
+            case "java.util.HashMap":
+            case "java.util.Map":
+                return "view";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return 参数类型对应的捕获类型，这样变量只会在第一次被读取的时候转换一次。
+     */
+    private static String captureTypeOf(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return "INT";
+            case LONG:
+                return "LONG";
+            case DOUBLE:
+                return "DOUBLE";
+            case ARRAY:
+                return "LONG_ARRAY";
+            default:
+        }
+        switch (erasure(type)) {
+            case "java.lang.Integer":
+                return "INT";
+            case "java.lang.Long":
+                return "LONG";
+            case "java.lang.Double":
+                return "DOUBLE";
+            case "java.util.List":
+                return "LIST";
+            default:
+                return "STRING";
+        }
+    }
+
+    private static String erasure(TypeMirror type) {
+        final String name = type.toString();
+        final int generic = name.indexOf('<');
+        return generic == -1 ? name : name.substring(0, generic);
+    }
+
+    private static String escape(String string) {
+        final StringBuilder builder = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                builder.append(String.format("\\u%04x", (int) c));
+            } else {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    private void generate(TypeElement type, Node root, ArrayList<Endpoint> endpoints) throws IOException {
+        final PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(type);
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String targetName = type.getQualifiedName().toString();
+        String simpleName = targetName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1).replace('.', '_');
+        simpleName += "_Commands";
+        try (Writer writer = this.processingEnv.getFiler().createSourceFile(packageName.isEmpty() ? simpleName : packageName + '.' + simpleName, type).openWriter();
+             PrintWriter out = new PrintWriter(writer)) {
+            if (!packageName.isEmpty()) {
+                out.append("package ").append(packageName).println(';');
+                out.println();
+            }
+            out.println("import zhao.gravel.grammar.command.*;");
+            out.println();
+            out.println("/**");
+            out.append(" * 由 CommandProcessor 根据 ").append(targetName).println(" 中的 Command 函数生成的语法树与分发器，请不要手动修改。");
+            out.println(" * <p>");
+            out.append(" * The syntax tree and dispatcher generated by CommandProcessor from the Command methods in ").append(targetName).println(", please do not modify it manually.");
+            out.println(" */");
+            out.append("public final class ").append(simpleName).println(" {");
+            out.println();
+            out.append("    private ").append(simpleName).println("() {");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * @param target 命令函数所属的对象，只包含静态命令函数的时候可以为 null。");
+            out.println("     *               <p>");
+            out.println("     *               The object the command methods belong to, which can be null when there are only static command methods.");
+            out.println("     * @return 由所有命令合并而成的语法树，可以直接被添加到回调器中。");
+            out.println("     * <p>");
+            out.println("     * The syntax trees merged from all commands, which can be directly added to a callback.");
+            out.println("     */");
+            out.append("    public static Syntax[] syntax(").append(targetName).println(" target) {");
+            out.println("        return new Syntax[]{");
+            int i = 0;
+            for (Node child : root.children.values()) {
+                out.append("                ");
+                this.node(out, child, "                ");
+                out.println(++i < root.children.size() ? "," : "");
+            }
+            out.println("        };");
+            out.println("    }");
+            out.println();
+            out.append("    static Object dispatch(").append(targetName).println(" target, int id, VariableContext context) {");
+            out.println("        final VariableView view = context.getView();");
+            out.println("        switch (id) {");
+            for (Endpoint endpoint : endpoints) {
+                final boolean isStatic = endpoint.method.getModifiers().contains(Modifier.STATIC);
+                final String call = (isStatic ? targetName : "target") + '.' + endpoint.method.getSimpleName() + '(' + String.join(", ", endpoint.arguments) + ')';
+                out.append("            case ").append(String.valueOf(endpoint.id)).println(':');
+                if (endpoint.method.getReturnType().getKind() == TypeKind.VOID) {
+                    out.append("                ").append(call).println(';');
+                    out.println("                return null;");
+                } else {
+                    out.append("                return ").append(call).println(';');
+                }
+            }
+            out.println("            default:");
+            out.println("                throw new UnsupportedOperationException(\"Unknown command id: \" + id);");
+            out.println("        }");
+            out.println("    }");
+            out.println();
+            out.println("    private static <T extends Syntax> T with(T syntax, Syntax... allSyntax) {");
+            out.println("        for (Syntax child : allSyntax) {");
+            out.println("            syntax.addSubSyntax(child);");
+            out.println("        }");
+            out.println("        return syntax;");
+            out.println("    }");
+            out.println();
+            out.println("    private static final class Dispatcher extends ActuatorParam {");
+            out.println();
+            out.append("        private final ").append(targetName).println(" target;");
+            out.println("        private final int id;");
+            out.println();
+            out.append("        Dispatcher(String name, String help_info, ").append(targetName).println(" target, int id) {");
+            out.println("            super(name, help_info);");
+            out.println("            this.target = target;");
+            out.println("            this.id = id;");
+            out.println("        }");
+            out.println();
+            out.println("        @Override");
+            out.println("        public Object run() {");
+            out.println("            throw new UnsupportedOperationException(\"[\" + this.getSyntaxName() + \"] needs a variable context to run.\");");
+            out.println("        }");
+            out.println();
+            out.println("        @Override");
+            out.println("        public Object run(VariableContext context) {");
+            out.println("            return dispatch(this.target, this.id, context);");
+            out.println("        }");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    /**
+     * 输出创建一个语法对象的表达式，子语法对象会被递归的输出。
+     */
+    private void node(PrintWriter out, Node node, String indent) {
+        final String name = node.wildcard ? "Syntax.WILDCARD" : '"' + escape(node.name) + '"';
+        final String childIndent = indent + "        ";
+        if (node.endpoint != null) {
+            final String help = node.endpoint.help.isEmpty() ? node.endpoint.method.getSimpleName() + ": No Help Info!!!!" : node.endpoint.help;
+            final String dispatcher = "new Dispatcher(" + name + ", \"" + escape(help) + "\", target, " + node.endpoint.id + ')';
+            if (node.children.isEmpty()) {
+                out.append(dispatcher);
+                return;
+            }
+            out.append("with(").append(dispatcher);
+        } else if (node.children.containsKey(WILDCARD)) {
+            out.append("SaveParam.create(").append(name).append(", CaptureType.").append(node.captureType == null ? "STRING" : node.captureType);
+        } else {
+            out.append("GrammarParam.create(").append(name);
+        }
+        for (Node child : node.children.values()) {
+            out.println(",");
+            out.append(childIndent);
+            this.node(out, child, childIndent);
+        }
+        out.append(')');
+    }
+
+    /**
+     * 由所有命令合并而成的语法树中的一个节点。
+     */
+    private static final class Node {
+
+        private final String name;
+        private final boolean wildcard;
+        private final LinkedHashMap<String, Node> children = new LinkedHashMap<>();
+        private Endpoint endpoint;
+        /**
+         * 此节点保存的变量的捕获类型，多个命令声明了不同的类型时使用 STRING
+         */
+        private String captureType;
+
+        Node(String name, boolean wildcard) {
+            this.name = name;
+            this.wildcard = wildcard;
+        }
+
+        Node child(String name, boolean wildcard) {
+            return this.children.computeIfAbsent(name, k -> new Node(k, wildcard));
+        }
+
+        void declare(String captureType) {
+            if (this.captureType == null) {
+                this.captureType = captureType;
+            } else if (!this.captureType.equals(captureType)) {
+                this.captureType = "STRING";
+            }
+        }
+    }
+
+    /**
+     * 一个命令函数以及其在分发器中的编号。
+     */
+    private static final class Endpoint {
+
+        private final ExecutableElement method;
+        private final int id;
+        private final String help;
+        private final ArrayList<String> arguments = new ArrayList<>();
+
+        Endpoint(ExecutableElement method, int id, String help) {
+            this.method = method;
+            this.id = id;
+            this.help = help;
+        }
+    }
+}
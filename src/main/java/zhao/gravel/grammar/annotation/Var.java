@@ -0,0 +1,28 @@
+package zhao.gravel.grammar.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 变量注解，用于指定命令函数的参数需要接收的变量名称，没有此注解的参数会使用参数名称做为变量名称。
+ * <p>
+ * Variable annotation, used to specify the variable name that a parameter of a command method receives. Parameters without this annotation use the parameter name as the variable name.
+ *
+ * @author zhao
+ * @see Command
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+public @interface Var {
+
+    /**
+     * @return 参数需要接收的变量名称，也就是命令中通配符前面的关键字。
+     * <p>
+     * The variable name the parameter receives, that is, the keyword before the wildcard in the command.
+     */
+    String value();
+}
@@ -35,14 +35,4 @@ public abstract class ActuatorAliasParam extends ActuatorParam {
     public String getAliasName() {
         return alias;
     }
-
-    /**
-     * @return 当前执行器对象在 mermaid 图中的名字代码。
-     * <p>
-     * The name code of the current executor object in the mermaid diagram.
-     */
-    @Override
-    protected String getMermaidName() {
-        return this.getHashId() + "([" + this.getAliasName() + "])";
-    }
 }
@@ -1,12 +1,12 @@
 package zhao.gravel.grammar.command;
 
-import java.io.PrintWriter;
-
 /**
  * @author zhao
  */
 public abstract class ActuatorParam extends GrammarParam {
 
+    private volatile boolean cacheable;
+
     protected ActuatorParam(String name) {
         super(name, "No Help Info");
     }
@@ -23,31 +23,48 @@ public abstract class ActuatorParam extends GrammarParam {
     public abstract Object run();
 
     /**
-     * @return 当前执行器对象在 mermaid 图中的名字代码。
+     * 使用指定的变量上下文运行当前执行器，需要使用到解析过程中保存的变量的执行器应重写此函数。
+     * <p>
+     * Run the current executor with the specified variable context. Executors that need the variables saved during parsing should override this function.
+     * <p>
+     * PS：默认情况下会先将上下文中的变量写入到保存它们的 SaveParam 的容器中，然后再调用 run()，运行结束之后容器会被清空，这样只重写了 run() 的旧执行器仍然可以从容器中读取到本次命令的变量，由于这些容器是被所有线程共享的，此过程会持有一个全局锁，需要并发运行的执行器应重写此函数。
      * <p>
-     * The name code of the current executor object in the mermaid diagram.
+     * By default, the variables in the context are first written into the containers of the SaveParam objects that saved them, then run() is called, and the containers are cleared after running, so that old executors that only override run() can still read the variables of this command from the containers. Since these containers are shared by all threads, this process holds a global lock; executors that need to run concurrently should override this function.
+     *
+     * @param context 本次命令执行对应的变量上下文，其中包含解析过程中保存的所有变量。
+     *                <p>
+     *                The variable context corresponding to this command execution, which contains all variables saved during parsing.
+     * @return 当前执行器参数的执行逻辑函数，执行完毕之后会返回一个任意数据类型。
+     * <p>
+     * The execution logic function of the current executor parameter will return an arbitrary data type after execution.
      */
-    protected String getMermaidName() {
-        return this.getHashId() + "([" + this.getSyntaxName() + "])";
+    public Object run(VariableContext context) {
+        return context.runLegacy(this);
     }
 
     /**
-     * 将当前回调器中包含的所有子语法树的图以 mermaid 的方式绘制出来。
+     * @return 当前执行器的运行结果是否可以被回调器的结果缓存记录。
      * <p>
-     * Draw a graph of all sub syntax trees contained in the current grammar in mermaid format.
+     * Whether the running result of the current executor can be recorded by the result cache of the callback.
+     */
+    public boolean isCacheable() {
+        return this.cacheable;
+    }
+
+    /**
+     * 设置当前执行器是否可缓存，可缓存的执行器在变量相同的时候必须返回相同的结果，并且不能有副作用，开启了结果缓存的回调器会直接复用其运行结果。
+     * <p>
+     * Set whether the current executor is cacheable. A cacheable executor must return the same result for the same variables and must have no side effects; a callback with the result cache enabled will reuse its running results directly.
      *
-     * @param outStream 图代码的输出数据流。
+     * @param cacheable 如果为 true 则代表当前执行器是幂等的，可以被缓存。
      *                  <p>
-     *                  graph code.
+     *                  If true, it means that the current executor is idempotent and can be cached.
+     * @return 当前执行器对象。
+     * <p>
+     * The current executor object.
      */
-    @Override
-    public void toString(PrintWriter outStream) {
-        super.toString(outStream);
-        outStream
-                .append(this.getMermaidName())
-                .append(" --> ")
-                .append(String.valueOf(Math.random()))
-                .println("[runCommand!!!!]");
-
+    public ActuatorParam setCacheable(boolean cacheable) {
+        this.cacheable = cacheable;
+        return this;
     }
 }
@@ -0,0 +1,89 @@
+package zhao.gravel.grammar.command;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * 执行器注册表，其按照名称保存执行器的执行逻辑，从语法镜像中加载语法树的时候，每个执行器都会通过导出时记录的名称在这里找到自己的执行逻辑。
+ * <p>
+ * Actuator registry, which keeps the execution logic of actuators by name. When a syntax tree is loaded from a grammar image, each actuator finds its execution logic here through the name recorded at export time.
+ *
+ * @author zhao
+ * @see GrammarImage
+ */
+public final class ActuatorRegistry {
+
+    private final LinkedHashMap<String, ActuatorTF> actuators = new LinkedHashMap<>();
+
+    private ActuatorRegistry() {
+    }
+
+    /**
+     * @return 一个新的空执行器注册表。
+     * <p>
+     * A new empty actuator registry.
+     */
+    public static ActuatorRegistry create() {
+        return new ActuatorRegistry();
+    }
+
+    /**
+     * 获取到执行器在语法镜像中默认使用的名称，具有别名的执行器会使用别名，其它执行器会使用参数名称。
+     * <p>
+     * Obtain the name that an actuator uses by default in a grammar image. Actuators with an alias use the alias, and other actuators use the parameter name.
+     *
+     * @param actuator 需要获取名称的执行器。
+     *                 <p>
+     *                 The actuator whose name needs to be obtained.
+     * @return 执行器在注册表中的名称。
+     * <p>
+     * The name of the actuator in the registry.
+     */
+    public static String keyOf(ActuatorParam actuator) {
+        return actuator instanceof ActuatorAliasParam ? ((ActuatorAliasParam) actuator).getAliasName() : actuator.getSyntaxName();
+    }
+
+    /**
+     * 注册一个执行逻辑。
+     * <p>
+     * Register an execution logic.
+     *
+     * @param key            执行器的名称，与导出语法镜像时记录的名称一致。
+     *                       <p>
+     *                       The name of the actuator, consistent with the name recorded when the grammar image was exported.
+     * @param transformation 执行器的执行逻辑，其输入为本次解析过程中保存的所有变量。
+     *                       <p>
+     *                       The execution logic of the actuator, whose input is all variables saved during this parsing.
+     * @return 当前注册表对象。
+     * <p>
+     * The current registry object.
+     */
+    public ActuatorRegistry register(String key, ActuatorTF transformation) {
+        if (this.actuators.putIfAbsent(key, transformation) != null) {
+            throw new IllegalArgumentException("The actuator [" + key + "] has already been registered.");
+        }
+        return this;
+    }
+
+    /**
+     * @param key 执行器的名称。
+     *            <p>
+     *            The name of the actuator.
+     * @return 名称对应的执行逻辑，没有注册时返回 null。
+     * <p>
+     * The execution logic corresponding to the name, or null if it is not registered.
+     */
+    public ActuatorTF get(String key) {
+        return this.actuators.get(key);
+    }
+
+    /**
+     * @return 所有已经注册的执行器名称。
+     * <p>
+     * The names of all registered actuators.
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(this.actuators.keySet());
+    }
+}
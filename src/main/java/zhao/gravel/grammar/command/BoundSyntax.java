@@ -0,0 +1,171 @@
+package zhao.gravel.grammar.command;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+/**
+ * 绑定语法对象，其将一个可以被共享的语法树模板与一个属于自己的绑定对象组合在一起，匹配经过此对象的时候，绑定对象会被放入到变量上下文中，模板中的执行器可以通过 VariableContext.getBinding() 获取到它。
+ * <p>
+ * Bound syntax object, which combines a shareable syntax tree template with a binding object of its own. When matching passes through this object, the binding object is put into the variable context, and the executors in the template can obtain it through VariableContext.getBinding().
+ * <p>
+ * PS：创建一个绑定语法对象只需要分配此对象本身，模板是不可修改的，因此 addSubSyntax 会抛出异常。
+ *
+ * @author zhao
+ */
+public class BoundSyntax implements Syntax {
+
+    protected final Syntax template;
+    protected final Object binding;
+    private volatile boolean randomHash;
+
+    protected BoundSyntax(Syntax template, Object binding) {
+        this.template = template;
+        this.binding = binding;
+    }
+
+    /**
+     * 创建出一个绑定语法对象。
+     *
+     * @param template 被共享的语法树模板。
+     * @param binding  当前语法对象的绑定对象，一般是模板中执行器需要使用的处理逻辑。
+     * @return 绑定语法对象
+     */
+    public static BoundSyntax create(Syntax template, Object binding) {
+        return new BoundSyntax(template, binding);
+    }
+
+    /**
+     * @return 被共享的语法树模板。
+     * <p>
+     * The shared syntax tree template.
+     */
+    public Syntax getTemplate() {
+        return this.template;
+    }
+
+    /**
+     * @return 当前语法对象的绑定对象。
+     * <p>
+     * The binding object of the current syntax object.
+     */
+    public Object getBinding() {
+        return this.binding;
+    }
+
+    @Override
+    public String getSyntaxName() {
+        return this.template.getSyntaxName();
+    }
+
+    @Override
+    public void addSubSyntax(Syntax syntax) {
+        throw new UnsupportedOperationException("The template of a bound syntax [" + this.getSyntaxName() + "] is shared and can not be modified.");
+    }
+
+    @Override
+    public void addSubSyntax(Map<String, Syntax> allSyntax) {
+        throw new UnsupportedOperationException("The template of a bound syntax [" + this.getSyntaxName() + "] is shared and can not be modified.");
+    }
+
+    /**
+     * 根据 syntaxName 在模板中获取到对应的 syntax 对象，此操作没有变量上下文，因此绑定对象不会生效。
+     * <p>
+     * Obtain the corresponding syntax object from the template based on syntax Name. There is no variable context in this operation, so the binding object will not take effect.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
+     * @return syntaxName 对应的 syntax 对象。
+     * <p>
+     * The syntax object corresponding to syntax Name.
+     */
+    @Override
+    public Syntax get(String syntaxName) {
+        return this.template.get(syntaxName);
+    }
+
+    /**
+     * 将绑定对象放入到变量上下文中，然后根据 syntaxName 在模板中获取到对应的 syntax 对象。
+     * <p>
+     * Put the binding object into the variable context, and then obtain the corresponding syntax object from the template based on syntax Name.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
+     * @param context    本次命令执行对应的变量上下文。
+     *                   <p>
+     *                   The variable context corresponding to this command execution.
+     * @return syntaxName 对应的 syntax 对象。
+     * <p>
+     * The syntax object corresponding to syntax Name.
+     */
+    @Override
+    public Syntax get(CharSequence syntaxName, VariableContext context) {
+        context.bind(this.binding);
+        return this.template.get(syntaxName, context);
+    }
+
+    @Override
+    public Syntax getDefault(String syntaxName) {
+        return this.template.getDefault(syntaxName);
+    }
+
+    @Override
+    public void toString(PrintWriter outStream) {
+        this.template.toString(outStream);
+    }
+
+    @Override
+    public boolean isRandomHash() {
+        return this.randomHash;
+    }
+
+    /**
+     * 设置当前绑定语法对象是否使用随机的哈希值，此设置只属于当前对象，不会修改被共享的模板。
+     * <p>
+     * Set whether the current bound syntax object uses a random hash value. This setting only belongs to the current object and does not modify the shared template.
+     *
+     * @param isRandomHash 如果为 true 则每次获取哈希值的时候都会返回一个随机数。
+     *                     <p>
+     *                     If true, a random number is returned every time the hash value is obtained.
+     */
+    @Override
+    public void setRandomHash(boolean isRandomHash) {
+        this.randomHash = isRandomHash;
+    }
+
+    @Override
+    public double getHashId() {
+        return this.randomHash ? Math.random() : this.template.getHashId();
+    }
+
+    /**
+     * 变量不会被存储在模板中，因此这里不需要进行任何操作。
+     * <p>
+     * Variables are not stored in the template, so nothing needs to be done here.
+     */
+    @Override
+    public void clearVariable() {
+
+    }
+
+    /**
+     * @return 当前对象，绑定语法对象是不可变的，因此不需要复制。
+     * <p>
+     * The current object, bound syntax objects are immutable, so there is no need to copy.
+     */
+    @Override
+    public BoundSyntax clone() {
+        return this;
+    }
+
+    @Override
+    public String getINFO() {
+        return this.template.getINFO();
+    }
+
+    @Override
+    public String toString() {
+        return this.template.toString();
+    }
+}
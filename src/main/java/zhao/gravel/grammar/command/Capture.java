@@ -0,0 +1,238 @@
+package zhao.gravel.grammar.command;
+
+import java.util.List;
+
+/**
+ * 带有类型的捕获变量，其中保存着捕获到的原始参数，数值会在第一次被读取的时候才进行转换，并且只会转换一次，数值类型的转换结果会直接保存在基本类型的字段中。
+ * <p>
+ * A typed capture variable, which holds the captured original parameter. The value is converted only when it is read for the first time, and only once. The conversion result of numeric types is stored directly in primitive fields.
+ * <p>
+ * PS：变量上下文只属于一次命令的执行，因此此对象不需要考虑线程安全的问题。
+ *
+ * @author zhao
+ * @see CaptureType
+ */
+public final class Capture {
+
+    private final CaptureType type;
+    private final String text;
+    private boolean converted;
+    private long longValue;
+    private double doubleValue;
+    private Object value;
+
+    Capture(CaptureType type, String text) {
+        this.type = type;
+        this.text = text;
+    }
+
+    /**
+     * 将变量上下文中保存的对象转换成为指定类型的数值，Capture 对象会优先使用已经转换好的结果。
+     *
+     * @param raw  变量上下文中保存的对象。
+     * @param type 需要的类型。
+     * @return 转换之后的数值。
+     */
+    static Object as(Object raw, CaptureType type) {
+        if (raw instanceof Capture) {
+            final Capture capture = (Capture) raw;
+            return capture.type == type ? capture.getValue() : type.convert(capture.text);
+        }
+        return raw instanceof String ? type.convert((String) raw) : raw;
+    }
+
+    /**
+     * 将变量上下文中保存的对象转换成为 long 数值，数值类型的对象会直接使用，不会进行装箱。
+     *
+     * @param raw  变量上下文中保存的对象。
+     * @param name 变量的名称，用于生成异常信息。
+     * @return 转换之后的数值。
+     */
+    static long asLong(Object raw, String name) {
+        if (raw instanceof Capture) {
+            return ((Capture) raw).longValue();
+        }
+        if (raw instanceof Number) {
+            return ((Number) raw).longValue();
+        }
+        if (raw instanceof CharSequence) {
+            final CharSequence text = (CharSequence) raw;
+            return CaptureType.parseLong(text, 0, text.length());
+        }
+        throw notConvertible(raw, name, "long");
+    }
+
+    /**
+     * 将变量上下文中保存的对象转换成为 double 数值，数值类型的对象会直接使用，不会进行装箱。
+     *
+     * @param raw  变量上下文中保存的对象。
+     * @param name 变量的名称，用于生成异常信息。
+     * @return 转换之后的数值。
+     */
+    static double asDouble(Object raw, String name) {
+        if (raw instanceof Capture) {
+            return ((Capture) raw).doubleValue();
+        }
+        if (raw instanceof Number) {
+            return ((Number) raw).doubleValue();
+        }
+        if (raw instanceof CharSequence) {
+            return Double.parseDouble(raw.toString());
+        }
+        throw notConvertible(raw, name, "double");
+    }
+
+    static IllegalArgumentException notConvertible(Object raw, String name, String type) {
+        return new IllegalArgumentException(raw == null
+                ? "No variable named [" + name + "] in the current context."
+                : "The variable [" + name + "] = " + raw + " can not be converted to " + type + '.');
+    }
+
+    /**
+     * @return 当前变量声明的类型。
+     * <p>
+     * The declared type of the current variable.
+     */
+    public CaptureType getType() {
+        return this.type;
+    }
+
+    /**
+     * @return 捕获到的原始参数。
+     * <p>
+     * The captured original parameter.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    private void convert() {
+        switch (this.type) {
+            case INT:
+                this.longValue = CaptureType.toInt(CaptureType.parseLong(this.text, 0, this.text.length()), this.text);
+                this.doubleValue = this.longValue;
+                break;
+            case LONG:
+                this.longValue = CaptureType.parseLong(this.text, 0, this.text.length());
+                this.doubleValue = this.longValue;
+                break;
+            case DOUBLE:
+                this.doubleValue = Double.parseDouble(this.text);
+                this.longValue = (long) this.doubleValue;
+                break;
+            default:
+                this.value = this.type.convert(this.text);
+        }
+        this.converted = true;
+    }
+
+    /**
+     * @return 按照声明的类型转换之后的数值，数值类型会在这里才进行装箱。
+     * <p>
+     * The value converted according to the declared type. Numeric types are boxed only here.
+     */
+    public Object getValue() {
+        if (!this.converted) {
+            this.convert();
+        }
+        if (this.value == null) {
+            // 只有数值类型会走到这里
+            this.value = this.type == CaptureType.INT ? (Object) (int) this.longValue
+                    : this.type == CaptureType.LONG ? (Object) this.longValue : (Object) this.doubleValue;
+        }
+        return this.value;
+    }
+
+    /**
+     * @return 当前变量的 int 数值，非数值类型的变量每次都会重新解析原始参数。
+     * <p>
+     * The int value of the current variable. Variables of non-numeric types re-parse the original parameter every time.
+     */
+    public int intValue() {
+        final long value = this.longValue();
+        return this.type == CaptureType.INT ? (int) value : CaptureType.toInt(value, this.text);
+    }
+
+    /**
+     * @return 当前变量的 long 数值，非数值类型的变量每次都会重新解析原始参数。
+     * <p>
+     * The long value of the current variable. Variables of non-numeric types re-parse the original parameter every time.
+     */
+    public long longValue() {
+        if (!this.isNumeric()) {
+            return CaptureType.parseLong(this.text, 0, this.text.length());
+        }
+        if (!this.converted) {
+            this.convert();
+        }
+        return this.longValue;
+    }
+
+    /**
+     * @return 当前变量的 double 数值，非数值类型的变量每次都会重新解析原始参数。
+     * <p>
+     * The double value of the current variable. Variables of non-numeric types re-parse the original parameter every time.
+     */
+    public double doubleValue() {
+        if (!this.isNumeric()) {
+            return Double.parseDouble(this.text);
+        }
+        if (!this.converted) {
+            this.convert();
+        }
+        return this.doubleValue;
+    }
+
+    /**
+     * @return 当前变量转换成为逗号分隔列表之后的结果。
+     * <p>
+     * The result of the current variable converted to a comma separated list.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> listValue() {
+        return (List<String>) (this.type == CaptureType.LIST ? this.getValue() : CaptureType.LIST.convert(this.text));
+    }
+
+    /**
+     * @return 当前变量转换成为多个 long 数值之后的结果，请不要修改返回的数组。
+     * <p>
+     * The result of the current variable converted to multiple long values, please do not modify the returned array.
+     */
+    public long[] longArrayValue() {
+        return (long[]) (this.type == CaptureType.LONG_ARRAY ? this.getValue() : CaptureType.LONG_ARRAY.convert(this.text));
+    }
+
+    private boolean isNumeric() {
+        return this.type == CaptureType.INT || this.type == CaptureType.LONG || this.type == CaptureType.DOUBLE;
+    }
+
+    /**
+     * @return 如果两个捕获变量的类型与原始参数都相同就返回 true，此操作不会触发转换。
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Capture)) {
+            return false;
+        }
+        final Capture capture = (Capture) o;
+        return this.type == capture.type && this.text.equals(capture.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.type.ordinal() * 31 + this.text.hashCode();
+    }
+
+    /**
+     * @return 捕获到的原始参数。
+     * <p>
+     * The captured original parameter.
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
@@ -0,0 +1,218 @@
+package zhao.gravel.grammar.command;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 捕获类型，SaveParam 可以声明自己保存的变量的类型，变量会在第一次被读取的时候按照此类型转换，并且只会转换一次。
+ * <p>
+ * Capture type. SaveParam can declare the type of the variable it saves, and the variable will be converted according to this type when it is read for the first time, and only once.
+ *
+ * @author zhao
+ * @see Capture
+ */
+public enum CaptureType {
+
+    /**
+     * 原样保存的字符串，这是 SaveParam 默认的类型，此类型的变量不会被包装成为 Capture 对象。
+     * <p>
+     * A string saved as is. This is the default type of SaveParam, and variables of this type will not be wrapped into Capture objects.
+     */
+    STRING {
+        @Override
+        Object convert(String text) {
+            return text;
+        }
+    },
+
+    /**
+     * 十进制的 int 数值，转换结果为 Integer。
+     * <p>
+     * A decimal int value, the conversion result is Integer.
+     */
+    INT {
+        @Override
+        Object convert(String text) {
+            return toInt(parseLong(text, 0, text.length()), text);
+        }
+    },
+
+    /**
+     * 十进制的 long 数值，转换结果为 Long。
+     * <p>
+     * A decimal long value, the conversion result is Long.
+     */
+    LONG {
+        @Override
+        Object convert(String text) {
+            return parseLong(text, 0, text.length());
+        }
+    },
+
+    /**
+     * 浮点数值，转换结果为 Double。
+     * <p>
+     * A floating point value, the conversion result is Double.
+     */
+    DOUBLE {
+        @Override
+        Object convert(String text) {
+            return Double.parseDouble(text);
+        }
+    },
+
+    /**
+     * 使用逗号分隔的列表，例如 "name, age"，每个元素两端的空白字符会被去除，转换结果为不可修改的 List&lt;String&gt;。
+     * <p>
+     * A comma separated list such as "name, age". The whitespace at both ends of each element is removed, and the conversion result is an unmodifiable List&lt;String&gt;.
+     */
+    LIST {
+        @Override
+        Object convert(String text) {
+            final ArrayList<String> list = new ArrayList<>();
+            int start = 0;
+            for (int i = 0, length = text.length(); i <= length; i++) {
+                if (i == length || text.charAt(i) == ',') {
+                    int s = start, e = i;
+                    while (s < e && Character.isWhitespace(text.charAt(s))) {
+                        s++;
+                    }
+                    while (e > s && Character.isWhitespace(text.charAt(e - 1))) {
+                        e--;
+                    }
+                    list.add(text.substring(s, e));
+                    start = i + 1;
+                }
+            }
+            return Collections.unmodifiableList(list);
+        }
+    },
+
+    /**
+     * 使用空白字符或逗号分隔的多个 long 数值，例如 limit 子句中的 "offset count"，转换结果为 long[]。
+     * <p>
+     * Multiple long values separated by whitespace or commas, such as "offset count" in the limit clause. The conversion result is long[].
+     */
+    LONG_ARRAY {
+        @Override
+        Object convert(String text) {
+            long[] values = new long[2];
+            int count = 0;
+            final int length = text.length();
+            int i = 0;
+            while (i < length) {
+                final char c = text.charAt(i);
+                if (c == ',' || Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                }
+                int end = i;
+                while (end < length && text.charAt(end) != ',' && !Character.isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count << 1);
+                }
+                values[count++] = parseLong(text, i, end);
+                i = end;
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+    },
+
+    /**
+     * 被引号包裹的字符串，例如 'zhao'，两端的引号会被去除，引号中可以使用反斜杠或连续两个引号进行转义，没有被引号包裹的字符串会原样保留。
+     * <p>
+     * A quoted string such as 'zhao'. The quotes at both ends are removed, and backslashes or two consecutive quotes can be used for escaping inside. Strings that are not quoted are kept as is.
+     */
+    QUOTED {
+        @Override
+        Object convert(String text) {
+            final int length = text.length();
+            final char quote = length < 2 ? 0 : text.charAt(0);
+            if (quote != '\'' && quote != '"' && quote != '`' || text.charAt(length - 1) != quote) {
+                return text;
+            }
+            final StringBuilder builder = new StringBuilder(length - 2);
+            for (int i = 1; i < length - 1; i++) {
+                final char c = text.charAt(i);
+                if (i + 1 < length - 1 && (c == '\\' || c == quote && text.charAt(i + 1) == quote)) {
+                    builder.append(text.charAt(++i));
+                } else {
+                    builder.append(c);
+                }
+            }
+            return builder.toString();
+        }
+    };
+
+    /**
+     * 将捕获到的参数转换成为当前类型的数值。
+     *
+     * @param text 捕获到的参数。
+     * @return 转换之后的数值。
+     */
+    abstract Object convert(String text);
+
+    /**
+     * 将捕获到的参数包装成为需要保存到变量上下文中的对象，STRING 类型会直接返回参数本身，其它类型会返回一个尚未转换的 Capture 对象。
+     * <p>
+     * Wrap the captured parameter into the object that needs to be saved to the variable context. The STRING type returns the parameter itself, and other types return a Capture object that has not been converted yet.
+     *
+     * @param text 捕获到的参数。
+     *             <p>
+     *             The captured parameter.
+     * @return 需要保存到变量上下文中的对象。
+     * <p>
+     * The object that needs to be saved to the variable context.
+     */
+    public Object capture(String text) {
+        return this == STRING ? text : new Capture(this, text);
+    }
+
+    /**
+     * 直接从字符序列的指定区间中解析出十进制的 long 数值，不会创建中间字符串。
+     *
+     * @param text  需要被解析的字符序列。
+     * @param start 数值的起始位置。
+     * @param end   数值的结束位置。
+     * @return 解析出来的数值。
+     * @throws NumberFormatException 区间中不是一个合法的 long 数值时抛出。
+     */
+    static long parseLong(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"" + text + "\"");
+        }
+        final boolean negative = text.charAt(start) == '-';
+        int i = negative || text.charAt(start) == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+        }
+        // 使用负数累加 这样才能表示 Long.MIN_VALUE
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < end; i++) {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+                throw new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    static int toInt(long value, CharSequence text) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: \"" + text + "\"");
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,220 @@
+package zhao.gravel.grammar.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 以字符序列做为 key 的映射表，其 hash 值是在忽略大小写的情况下计算出来的，因此在查找的时候不需要创建小写的字符串副本。
+ * <p>
+ * A mapping table keyed by character sequences. Its hash value is calculated while ignoring case, so there is no need to create a lowercase copy of the string when searching.
+ * <p>
+ * PS：每一个 key 都可以单独的设置是否忽略大小写，不忽略大小写的 key 只能被完全相同的字符序列匹配到。
+ *
+ * @param <V> 映射表中存储的数据类型。
+ * @author zhao
+ */
+public class CaseFoldMap<V> {
+
+    private Entry<V>[] table;
+    private int size;
+
+    public CaseFoldMap() {
+        this(8);
+    }
+
+    /**
+     * @param expectedSize 预计会存储的元素数量。
+     *                     <p>
+     *                     The expected number of elements to be stored.
+     */
+    public CaseFoldMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        this.table = newTable(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Entry<V>[] newTable(int capacity) {
+        return (Entry<V>[]) new Entry<?>[capacity];
+    }
+
+    /**
+     * 计算一个字符序列在忽略大小写情况下的 hash 值。
+     * <p>
+     * Calculate the hash value of a character sequence while ignoring case.
+     *
+     * @param key 需要计算 hash 值的字符序列。
+     *            <p>
+     *            The character sequence that needs to calculate the hash value.
+     * @return 忽略大小写的 hash 值。
+     * <p>
+     * Case-insensitive hash value.
+     */
+    public static int foldHash(CharSequence key) {
+        int h = 0;
+        for (int i = 0, length = key.length(); i < length; i++) {
+            h = 31 * h + Character.toLowerCase(key.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param a 第一个字符序列。
+     * @param b 第二个字符序列。
+     * @return 如果两个字符序列在忽略大小写的情况下相同就返回 true。
+     * <p>
+     * Returns true if the two character sequences are the same ignoring case.
+     */
+    public static boolean equalsIgnoreCase(CharSequence a, CharSequence b) {
+        final int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char c1 = a.charAt(i), c2 = b.charAt(i);
+            if (c1 != c2 && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param a 第一个字符序列。
+     * @param b 第二个字符序列。
+     * @return 如果两个字符序列完全相同就返回 true。
+     * <p>
+     * Returns true if the two character sequences are exactly the same.
+     */
+    public static boolean equals(CharSequence a, CharSequence b) {
+        final int length = a.length();
+        if (length != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (a.charAt(i) != b.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 将一个元素添加到映射表中，如果映射表中已经存在完全相同的 key 则会将其对应的元素替换掉。
+     * <p>
+     * Add an element to the mapping table. If an identical key already exists in the mapping table, its corresponding element will be replaced.
+     *
+     * @param key        元素对应的 key。
+     *                   <p>
+     *                   The key corresponding to the element.
+     * @param ignoreCase 在查找此元素的时候是否忽略大小写。
+     *                   <p>
+     *                   Whether to ignore case when searching for this element.
+     * @param value      需要被添加的元素。
+     *                   <p>
+     *                   The element that needs to be added.
+     * @return 被替换掉的元素，如果没有被替换的元素就返回 null。
+     * <p>
+     * The replaced element, or null if there is no replaced element.
+     */
+    public V put(String key, boolean ignoreCase, V value) {
+        final int hash = foldHash(key);
+        final int index = hash & (this.table.length - 1);
+        for (Entry<V> e = this.table[index]; e != null; e = e.next) {
+            if (e.hash == hash && e.key.equals(key)) {
+                final V old = e.value;
+                this.table[index] = new Entry<>(key, hash, ignoreCase, value, this.without(this.table[index], e));
+                return old;
+            }
+        }
+        this.table[index] = new Entry<>(key, hash, ignoreCase, value, this.table[index]);
+        if (++this.size * 4 > this.table.length * 3) {
+            this.resize();
+        }
+        return null;
+    }
+
+    /**
+     * 根据字符序列获取到对应的元素，查找过程中不会创建任何新的对象。
+     * <p>
+     * Obtain the corresponding element based on the character sequence, no new objects will be created during the search.
+     *
+     * @param key 需要查找的字符序列。
+     *            <p>
+     *            The character sequence that needs to be searched.
+     * @return 字符序列对应的元素，如果没有找到就返回 null。
+     * <p>
+     * The element corresponding to the character sequence, or null if it is not found.
+     */
+    public V get(CharSequence key) {
+        final int hash = foldHash(key);
+        for (Entry<V> e = this.table[hash & (this.table.length - 1)]; e != null; e = e.next) {
+            if (e.hash == hash && (e.ignoreCase ? equalsIgnoreCase(e.key, key) : equals(e.key, key))) {
+                return e.value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 映射表中元素的数量。
+     * <p>
+     * The number of elements in the mapping table.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return 映射表中所有的元素。
+     * <p>
+     * All elements in the mapping table.
+     */
+    public List<V> values() {
+        final ArrayList<V> res = new ArrayList<>(this.size);
+        for (Entry<V> e : this.table) {
+            for (; e != null; e = e.next) {
+                res.add(e.value);
+            }
+        }
+        return res;
+    }
+
+    private Entry<V> without(Entry<V> head, Entry<V> target) {
+        if (head == target) {
+            return head.next;
+        }
+        return new Entry<>(head.key, head.hash, head.ignoreCase, head.value, this.without(head.next, target));
+    }
+
+    private void resize() {
+        final Entry<V>[] old = this.table;
+        final Entry<V>[] table = newTable(old.length << 1);
+        final int mask = table.length - 1;
+        for (Entry<V> e : old) {
+            for (; e != null; e = e.next) {
+                final int index = e.hash & mask;
+                table[index] = new Entry<>(e.key, e.hash, e.ignoreCase, e.value, table[index]);
+            }
+        }
+        this.table = table;
+    }
+
+    private static final class Entry<V> {
+        final String key;
+        final int hash;
+        final boolean ignoreCase;
+        final V value;
+        final Entry<V> next;
+
+        Entry(String key, int hash, boolean ignoreCase, V value, Entry<V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.ignoreCase = ignoreCase;
+            this.value = value;
+            this.next = next;
+        }
+    }
+}
@@ -3,21 +3,41 @@ package zhao.gravel.grammar.command;
 import zhao.gravel.grammar.StreamString;
 import zhao.utils.IOUtils;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.util.HashMap;
-import java.util.Locale;
-import java.util.Map;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * 语法参数对象，其所有的子语法对象都保存在一个不可修改的快照中，添加子语法对象的时候会复制出一个新的快照并原子的替换旧的快照，因此匹配过程不需要任何锁，并且不会看到修改了一半的子语法对象。
+ * <p>
+ * Grammar parameter object. All of its sub syntax objects are kept in an immutable snapshot. Adding sub syntax objects copies a new snapshot and atomically replaces the old one, so matching needs no locks and never sees half-modified sub syntax objects.
+ *
  * @author zhao
  */
 public class GrammarParam extends StreamString implements Syntax {
 
-    protected final HashMap<String, Syntax> syntaxHashMap;
+    /**
+     * 当前所有子语法对象的快照，只会被整体替换，不会被修改
+     * <p>
+     * The snapshot of all current sub syntax objects, which is only replaced as a whole and never modified
+     */
+    private volatile Children children;
+    /**
+     * 通过 link 设置的还没有建立快照的子语法对象
+     */
+    private Syntax[] pending;
     private final String name;
+    private final boolean ignoreCase;
     private final String help_info;
-    protected Syntax defaultSyntax;
+    /**
+     * 在当前语法对象上停止匹配的次数
+     * <p>
+     * The number of times matching stopped at the current syntax object
+     */
+    final LongAdder missCount = new LongAdder();
     private int hash;
     private boolean randomHash;
 
@@ -25,12 +45,9 @@ public class GrammarParam extends StreamString implements Syntax {
         this.help_info = help_info;
         // 为什么这里改了之后 parse 出来的结果就不对了
         this.name = toLower ? name.toLowerCase(Locale.ROOT) : name;
-        syntaxHashMap = new HashMap<>(allSyntax.length + 4);
-        for (Syntax syntax : allSyntax) {
-            syntaxHashMap.put(syntax.getSyntaxName(), syntax);
-        }
+        this.ignoreCase = toLower;
+        this.children = Children.of(allSyntax);
         this.randomHash = false;
-        this.defaultSyntax = this.syntaxHashMap.getOrDefault(NotFindParam.WILDCARD, NotFindParam.NOT_FIND);
         hash = this.hashCode();
     }
 
@@ -63,6 +80,14 @@ public class GrammarParam extends StreamString implements Syntax {
         return grammarParam;
     }
 
+    /**
+     * @param syntax 需要被判断的语法对象。
+     * @return 如果语法对象在被匹配的时候需要忽略大小写就返回 true，非 GrammarParam 的语法对象总是忽略大小写。
+     */
+    private static boolean isIgnoreCase(Syntax syntax) {
+        return !(syntax instanceof GrammarParam) || ((GrammarParam) syntax).isIgnoreCase();
+    }
+
     /**
      * @return 当前语法对象 对应的参数名称。
      */
@@ -71,6 +96,15 @@ public class GrammarParam extends StreamString implements Syntax {
         return this.name;
     }
 
+    /**
+     * @return 当前语法对象在被父语法对象匹配的时候是否忽略大小写，此设置与构造时的 toLower 参数一致。
+     * <p>
+     * Whether the current syntax object ignores case when matched by the parent syntax object, this setting is consistent with the toLower parameter at construction time.
+     */
+    public boolean isIgnoreCase() {
+        return this.ignoreCase;
+    }
+
     /**
      * 向此语法对象添加子语法树对象，子语法树将可以被此语法树调用。
      * <p>
@@ -81,11 +115,11 @@ public class GrammarParam extends StreamString implements Syntax {
      *               The sub syntax tree object that needs to be added.
      */
     @Override
-    public void addSubSyntax(Syntax syntax) {
-        if (WILDCARD.equals(syntax.getSyntaxName())) {
-            this.defaultSyntax = syntax;
-        }
-        this.syntaxHashMap.put(syntax.getSyntaxName(), syntax);
+    public synchronized void addSubSyntax(Syntax syntax) {
+        final Children old = this.children();
+        final LinkedHashMap<String, Syntax> map = new LinkedHashMap<>(old.map);
+        map.put(syntax.getSyntaxName(), syntax);
+        this.children = new Children(map, WILDCARD.equals(syntax.getSyntaxName()) ? syntax : old.defaultSyntax);
     }
 
     /**
@@ -98,12 +132,60 @@ public class GrammarParam extends StreamString implements Syntax {
      *                  The sub syntax tree object that needs to be added.
      */
     @Override
-    public void addSubSyntax(Map<String, Syntax> allSyntax) {
-        this.syntaxHashMap.putAll(allSyntax);
-        final Syntax syntax = this.get(WILDCARD);
-        if (syntax != null) {
-            this.defaultSyntax = syntax;
+    public synchronized void addSubSyntax(Map<String, Syntax> allSyntax) {
+        final Children old = this.children();
+        final LinkedHashMap<String, Syntax> map = new LinkedHashMap<>(old.map);
+        map.putAll(allSyntax);
+        final Syntax syntax = map.get(WILDCARD);
+        this.children = new Children(map, syntax != null ? syntax : old.defaultSyntax);
+    }
+
+    /**
+     * 使用一组新的子语法对象整体替换当前所有的子语法对象，替换是原子的，正在匹配的命令会继续使用旧的子语法对象完成匹配，之后的命令会使用新的子语法对象。
+     * <p>
+     * Replace all current sub syntax objects with a new group of sub syntax objects as a whole. The replacement is atomic: commands that are being matched finish on the old sub syntax objects, and subsequent commands use the new ones.
+     * <p>
+     * PS：新的子语法树需要在调用此函数之前构建完成，被替换进来之后就不应该再修改其中的语法对象。
+     *
+     * @param allSyntax 新的子语法对象。
+     *                  <p>
+     *                  The new sub syntax objects.
+     * @return 被替换掉的子语法对象的只读映射表，可以用于回滚。
+     * <p>
+     * A read-only mapping table of the replaced sub syntax objects, which can be used for rollback.
+     */
+    public synchronized Map<String, Syntax> replaceSubSyntax(Syntax... allSyntax) {
+        final Children old = this.children();
+        this.children = Children.of(allSyntax);
+        return old.view;
+    }
+
+    /**
+     * 直接设置当前语法对象的子语法对象，只用于还没有被发布的语法对象，因此不会合并 SaveParam 的变量容器，子语法对象的快照会在第一次被使用的时候才建立，这样加载大型语法树的时候不需要为每个语法对象建立索引。
+     *
+     * @param allSyntax 当前语法对象的所有子语法对象。
+     * @see GrammarImage
+     */
+    final void link(Syntax... allSyntax) {
+        this.pending = allSyntax;
+        this.children = null;
+    }
+
+    /**
+     * @return 当前子语法对象的快照，如果子语法对象是通过 link 设置的，则会在这里建立快照。
+     */
+    private Children children() {
+        final Children children = this.children;
+        return children != null ? children : this.resolveChildren();
+    }
+
+    private synchronized Children resolveChildren() {
+        Children children = this.children;
+        if (children == null) {
+            this.children = children = Children.of(this.pending);
+            this.pending = null;
         }
+        return children;
     }
 
     /**
@@ -120,7 +202,7 @@ public class GrammarParam extends StreamString implements Syntax {
      */
     @Override
     public Syntax get(String syntaxName) {
-        final Syntax syntax = this.syntaxHashMap.get(syntaxName.toLowerCase(Locale.ROOT));
+        final Syntax syntax = this.children().index.get(syntaxName);
         if (syntax != null) {
             return syntax;
         } else {
@@ -128,6 +210,88 @@ public class GrammarParam extends StreamString implements Syntax {
         }
     }
 
+    /**
+     * 根据 syntaxName 获取到对应的 syntax 对象，在获取过程中需要保存的变量将会被存储到指定的上下文中，而不是存储在语法对象中。
+     * <p>
+     * Obtain the corresponding syntax object based on syntax Name. The variables that need to be saved during the process will be stored in the specified context instead of the syntax object.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
+     * @param context    本次命令执行对应的变量上下文。
+     *                   <p>
+     *                   The variable context corresponding to this command execution.
+     * @return syntaxName 对应的 syntax 对象。
+     * <p>
+     * The syntax object corresponding to syntax Name.
+     */
+    @Override
+    public Syntax get(CharSequence syntaxName, VariableContext context) {
+        return this.find(syntaxName);
+    }
+
+    /**
+     * 在子语法对象中查找 syntaxName 对应的语法对象，此操作不会保存任何变量。
+     * <p>
+     * Find the syntax object corresponding to syntax Name among the sub syntax objects, this operation does not save any variables.
+     *
+     * @param syntaxName 需要获取的对象对应的名称。
+     *                   <p>
+     *                   The name of the object that needs to be obtained.
+     * @return syntaxName 对应的 syntax 对象，如果没有找到就返回默认的语法对象。
+     * <p>
+     * The syntax object corresponding to syntax Name, or the default syntax object if it is not found.
+     */
+    protected final Syntax find(CharSequence syntaxName) {
+        // 只读取一次快照 这样查找与默认语法对象一定来自同一个版本
+        final Children children = this.children();
+        final Syntax syntax = children.index.get(syntaxName);
+        if (syntax != null) {
+            return syntax;
+        } else {
+            return children.defaultSyntax;
+        }
+    }
+
+    /**
+     * @return 当前语法对象中所有子语法对象的只读映射表，key 为子语法对象在匹配时使用的名称。
+     * <p>
+     * A read-only mapping table of all sub syntax objects in the current syntax object, the key is the name used by the sub syntax object when matching.
+     */
+    public Map<String, Syntax> getSubSyntax() {
+        return this.children().view;
+    }
+
+    /**
+     * @return 在当前语法对象之后期望出现的所有子语法名称，不包含通配符与未找到参数，结果会被缓存，直到子语法对象发生变化。
+     * <p>
+     * The names of all sub syntax expected after the current syntax object, excluding the wildcard and the not found parameter. The result is cached until the sub syntax objects change.
+     */
+    public List<String> getExpectedNames() {
+        final Children children = this.children();
+        List<String> names = children.expectedNames;
+        if (names == null) {
+            final ArrayList<String> list = new ArrayList<>(children.map.size());
+            for (Map.Entry<String, Syntax> entry : children.map.entrySet()) {
+                if (!WILDCARD.equals(entry.getKey()) && !(entry.getValue() instanceof NotFindParam)) {
+                    list.add(entry.getKey());
+                }
+            }
+            Collections.sort(list);
+            children.expectedNames = names = Collections.unmodifiableList(list);
+        }
+        return names;
+    }
+
+    /**
+     * @return 命令的匹配在当前语法对象上停止的次数，也就是在当前语法对象之后出现了无法识别的参数或命令提前结束的次数。
+     * <p>
+     * The number of times command matching stopped at the current syntax object, that is, the number of times an unrecognized parameter appeared after the current syntax object or the command ended early.
+     */
+    public long getMissCount() {
+        return this.missCount.sum();
+    }
+
     /**
      * 获取到默认的语法对象，当无法获取到子语法的时候，将会直接调用此函数，并将函数返回的语法对象做为下一个执行。
      *
@@ -136,23 +300,24 @@ public class GrammarParam extends StreamString implements Syntax {
      */
     @Override
     public Syntax getDefault(String syntaxName) {
-        return this.defaultSyntax;
+        return this.children().defaultSyntax;
     }
 
     /**
-     * 不指定方向的添加元素
+     * 不指定方向的添加元素，被共享的子语法对象只会被输出一次，节点编号按照被发现的顺序分配。
      *
      * @param outStream 图代码的输出数据流。
      *                  <p>
      *                  graph code.
+     * @see MermaidRenderer
      */
     @Override
     public void toString(PrintWriter outStream) {
-        for (Syntax value : this.syntaxHashMap.values()) {
-            outStream.append(String.valueOf(this.getHashId())).append('[').append(this.getSyntaxName()).append(']')
-                    .append(" --> ")
-                    .append(String.valueOf(value.getHashId())).append('[').append(value.getSyntaxName()).println(']');
-            value.toString(outStream);
+        try {
+            MermaidRenderer.renderBody(this, outStream);
+        } catch (IOException e) {
+            // PrintWriter 不会抛出异常
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -198,7 +363,7 @@ public class GrammarParam extends StreamString implements Syntax {
      */
     @Override
     public void clearVariable() {
-        for (Syntax value : this.syntaxHashMap.values()) {
+        for (Syntax value : this.children().map.values()) {
             if (value instanceof SaveParam) {
                 value.clearVariable();
             }
@@ -209,7 +374,7 @@ public class GrammarParam extends StreamString implements Syntax {
     public GrammarParam clone() {
         try {
             GrammarParam clone = (GrammarParam) super.clone();
-            // TODO: 复制此处的可变状态，这样此克隆就不能更改初始克隆的内部
+            // 子语法对象的快照是不可修改的 克隆之后添加子语法对象只会替换克隆自己的快照
             clone.hash = clone.hashCode();
             return clone;
         } catch (CloneNotSupportedException e) {
@@ -226,4 +391,50 @@ public class GrammarParam extends StreamString implements Syntax {
     public String getINFO() {
         return this.help_info;
     }
+
+    /**
+     * 子语法对象的不可修改快照，映射表、忽略大小写的索引以及默认语法对象总是一起被替换的。
+     */
+    private static final class Children {
+
+        /**
+         * 没有任何子语法对象的快照，快照是不可修改的，因此可以被所有的语法对象共享，其需要在 NOT_FIND 创建之后才能够创建
+         */
+        private static volatile Children empty;
+
+        private final LinkedHashMap<String, Syntax> map;
+        private final Map<String, Syntax> view;
+        private final CaseFoldMap<Syntax> index;
+        private final Syntax defaultSyntax;
+        /**
+         * 当前快照中期望出现的子语法名称，在第一次使用的时候计算
+         */
+        private volatile List<String> expectedNames;
+
+        Children(LinkedHashMap<String, Syntax> map, Syntax defaultSyntax) {
+            this.map = map;
+            this.view = Collections.unmodifiableMap(map);
+            this.index = new CaseFoldMap<>(map.size() + 4);
+            for (Map.Entry<String, Syntax> entry : map.entrySet()) {
+                this.index.put(entry.getKey(), isIgnoreCase(entry.getValue()), entry.getValue());
+            }
+            this.defaultSyntax = defaultSyntax;
+        }
+
+        static Children of(Syntax... allSyntax) {
+            if (allSyntax.length == 0 && NotFindParam.NOT_FIND != null) {
+                Children children = empty;
+                if (children == null) {
+                    empty = children = new Children(new LinkedHashMap<>(), NotFindParam.NOT_FIND);
+                }
+                return children;
+            }
+            // 保持子语法对象的添加顺序 这样绘制出来的图是稳定的
+            final LinkedHashMap<String, Syntax> map = new LinkedHashMap<>(allSyntax.length + 4);
+            for (Syntax syntax : allSyntax) {
+                map.put(syntax.getSyntaxName(), syntax);
+            }
+            return new Children(map, map.getOrDefault(WILDCARD, NotFindParam.NOT_FIND));
+        }
+    }
 }
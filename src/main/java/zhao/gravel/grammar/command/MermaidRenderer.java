@@ -0,0 +1,252 @@
+package zhao.gravel.grammar.command;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+/**
+ * mermaid 图渲染器，其使用显式的栈对语法图进行一次深度优先遍历，每个语法对象只会被输出一次，因此被共享的子语法树与带有环的语法图都可以被正确的绘制。
+ * <p>
+ * Mermaid graph renderer, which performs a single depth-first traversal of the syntax graph with an explicit stack. Each syntax object is output only once, so shared sub syntax trees and cyclic syntax graphs can be drawn correctly.
+ * <p>
+ * PS：节点的编号按照被发现的顺序依次分配，同一个语法图每次渲染的结果都是相同的，输出会直接写入到数据流中，不会在内存中拼接。
+ *
+ * @author zhao
+ */
+public final class MermaidRenderer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer out;
+    /**
+     * 在写入数据流之前暂存图代码的缓冲区，其大小是有上限的
+     * <p>
+     * The buffer that temporarily stores graph code before writing it to the output stream, its size is bounded
+     */
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 256);
+    private final IdentityHashMap<Syntax, Integer> ids = new IdentityHashMap<>();
+
+    private MermaidRenderer(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * 将语法图以 mermaid 的方式绘制到字符输出流中，此函数不会关闭输出流。
+     * <p>
+     * Draw the syntax graph in mermaid format to the character output stream. This function does not close the output stream.
+     *
+     * @param root 需要被绘制的语法图的根。
+     *             <p>
+     *             The root of the syntax graph that needs to be drawn.
+     * @param isLR 是否以左右的方式来进行图的绘制，如果是就为true。
+     *             <p>
+     *             Is the drawing done in a left and right manner? If so, it is true.
+     * @param out  图代码的输出数据流。
+     *             <p>
+     *             The output stream of the graph code.
+     * @throws IOException 写入数据时出现错误。
+     */
+    public static void render(Syntax root, boolean isLR, Writer out) throws IOException {
+        out.write("graph ");
+        out.write(isLR ? "LR" : "BR");
+        out.write('\n');
+        renderBody(root, out);
+    }
+
+    /**
+     * 将语法图以 mermaid 的方式使用 UTF-8 编码绘制到字节输出流中，此函数会刷新但不会关闭输出流。
+     * <p>
+     * Draw the syntax graph in mermaid format to the byte output stream with UTF-8 encoding. This function flushes but does not close the output stream.
+     *
+     * @param root 需要被绘制的语法图的根。
+     *             <p>
+     *             The root of the syntax graph that needs to be drawn.
+     * @param isLR 是否以左右的方式来进行图的绘制，如果是就为true。
+     *             <p>
+     *             Is the drawing done in a left and right manner? If so, it is true.
+     * @param out  图代码的输出数据流。
+     *             <p>
+     *             The output stream of the graph code.
+     * @throws IOException 写入数据时出现错误。
+     */
+    public static void render(Syntax root, boolean isLR, OutputStream out) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        render(root, isLR, writer);
+        writer.flush();
+    }
+
+    /**
+     * 将语法图以 mermaid 的方式绘制成为字符串。
+     * <p>
+     * Draw the syntax graph in mermaid format as a string.
+     *
+     * @param root 需要被绘制的语法图的根。
+     *             <p>
+     *             The root of the syntax graph that needs to be drawn.
+     * @param isLR 是否以左右的方式来进行图的绘制，如果是就为true。
+     *             <p>
+     *             Is the drawing done in a left and right manner? If so, it is true.
+     * @return 图代码。
+     * <p>
+     * Graph code.
+     */
+    public static String render(Syntax root, boolean isLR) {
+        final StringWriter stringWriter = new StringWriter();
+        try {
+            render(root, isLR, stringWriter);
+        } catch (IOException e) {
+            // StringWriter 不会抛出异常
+            throw new UncheckedIOException(e);
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * 只绘制语法图中的节点与边，不包含 mermaid 图的头部。
+     * <p>
+     * Only draw the nodes and edges in the syntax graph, excluding the header of the mermaid graph.
+     *
+     * @param root 需要被绘制的语法图的根。
+     *             <p>
+     *             The root of the syntax graph that needs to be drawn.
+     * @param out  图代码的输出数据流。
+     *             <p>
+     *             The output stream of the graph code.
+     * @throws IOException 写入数据时出现错误。
+     */
+    public static void renderBody(Syntax root, Writer out) throws IOException {
+        new MermaidRenderer(out).walk(root);
+    }
+
+    /**
+     * 只绘制多个语法图中的节点与边，不包含 mermaid 图的头部，所有的语法图会共享同一套节点编号，因此不同语法图中的节点不会被合并，被多个语法图共享的节点也只会被输出一次。
+     * <p>
+     * Only draw the nodes and edges in multiple syntax graphs, excluding the header of the mermaid graph. All syntax graphs share one set of node ids, so nodes of different syntax graphs are not merged, and nodes shared by multiple syntax graphs are output only once.
+     *
+     * @param roots 需要被绘制的所有语法图的根。
+     *              <p>
+     *              The roots of all syntax graphs that need to be drawn.
+     * @param out   图代码的输出数据流。
+     *              <p>
+     *              The output stream of the graph code.
+     * @throws IOException 写入数据时出现错误。
+     */
+    public static void renderBody(Iterable<? extends Syntax> roots, Writer out) throws IOException {
+        final MermaidRenderer renderer = new MermaidRenderer(out);
+        for (Syntax root : roots) {
+            renderer.walk(root);
+        }
+    }
+
+    private static Syntax resolve(Syntax syntax) {
+        return syntax instanceof BoundSyntax ? ((BoundSyntax) syntax).getTemplate() : syntax;
+    }
+
+    private static Iterator<Syntax> children(Syntax syntax) {
+        return syntax instanceof GrammarParam ? ((GrammarParam) syntax).getSubSyntax().values().iterator() : null;
+    }
+
+    private void walk(Syntax root) throws IOException {
+        root = resolve(root);
+        if (this.ids.containsKey(root)) {
+            return;
+        }
+        final ArrayDeque<Iterator<Syntax>> stack = new ArrayDeque<>();
+        final ArrayDeque<Integer> parents = new ArrayDeque<>();
+        final int rootId = this.visit(root);
+        this.node(rootId, root);
+        this.buffer.append('\n');
+        this.actuator(rootId, root);
+        final Iterator<Syntax> rootChildren = children(root);
+        if (rootChildren != null) {
+            stack.push(rootChildren);
+            parents.push(rootId);
+        }
+        while (!stack.isEmpty()) {
+            if (this.buffer.length() >= BUFFER_SIZE) {
+                this.flush();
+            }
+            final Iterator<Syntax> iterator = stack.peek();
+            if (!iterator.hasNext()) {
+                stack.pop();
+                parents.pop();
+                continue;
+            }
+            final Syntax child = resolve(iterator.next());
+            final int parent = parents.peek();
+            Integer id = this.ids.get(child);
+            this.id(parent);
+            this.buffer.append(" --> ");
+            if (id == null) {
+                id = this.visit(child);
+                this.node(id, child);
+                this.buffer.append('\n');
+                this.actuator(id, child);
+                final Iterator<Syntax> grandChildren = children(child);
+                if (grandChildren != null) {
+                    stack.push(grandChildren);
+                    parents.push(id);
+                }
+            } else {
+                this.id(id);
+                this.buffer.append('\n');
+            }
+        }
+        this.flush();
+    }
+
+    private void flush() throws IOException {
+        this.out.append(this.buffer);
+        this.buffer.setLength(0);
+    }
+
+    private int visit(Syntax syntax) {
+        final int id = this.ids.size();
+        this.ids.put(syntax, id);
+        return id;
+    }
+
+    private void id(int id) {
+        this.buffer.append('n').append(id);
+    }
+
+    private void node(int id, Syntax syntax) {
+        this.id(id);
+        if (syntax instanceof ActuatorParam) {
+            this.buffer.append("([\"");
+            this.label(syntax instanceof ActuatorAliasParam ? ((ActuatorAliasParam) syntax).getAliasName() : syntax.getSyntaxName());
+            this.buffer.append("\"])");
+        } else {
+            this.buffer.append("[\"");
+            this.label(syntax.getSyntaxName());
+            this.buffer.append("\"]");
+        }
+    }
+
+    /**
+     * 执行器节点会额外连接到一个代表运行命令的节点。
+     */
+    private void actuator(int id, Syntax syntax) {
+        if (syntax instanceof ActuatorParam) {
+            this.id(id);
+            this.buffer.append(" --> ");
+            this.id(id);
+            this.buffer.append("r[\"runCommand!!!!\"]\n");
+        }
+    }
+
+    private void label(String label) {
+        for (int i = 0, length = label.length(); i < length; i++) {
+            final char c = label.charAt(i);
+            if (c == '"') {
+                this.buffer.append("#quot;");
+            } else if (c == '\n' || c == '\r') {
+                this.buffer.append(' ');
+            } else {
+                this.buffer.append(c);
+            }
+        }
+    }
+}
@@ -6,7 +6,10 @@ import java.util.Map;
  * 当没有参数被找到的时候，此参数对象将会被启动。
  * <p>
  * When no parameters are found, this parameter object will be activated.
+ * <p>
+ * PS：此对象是匹配的终点，从它获取到的子语法对象总是它自己，回调器遇到它的时候会返回 NotFindResult。
  *
+ * @see NotFindResult
  * @author zhao
  */
 public class NotFindParam extends GrammarParam {
@@ -53,17 +56,32 @@ public class NotFindParam extends GrammarParam {
      * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
      *                   <p>
      *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
-     * @return syntaxName 对应的 syntax 对象。
+     * @return 当前对象，未找到参数之后的所有参数都不会被匹配。
      * <p>
-     * The syntax object corresponding to syntax Name.
+     * The current object, all parameters after a not found parameter will not be matched.
      */
     @Override
     public Syntax get(String syntaxName) {
-        return new ActuatorParam(syntaxName) {
-            @Override
-            public Object run() {
-                return "notFind ActuatorParam " + this.getSyntaxName();
-            }
-        };
+        return this;
+    }
+
+    /**
+     * 根据 syntaxName 获取到对应的 syntax 对象。
+     * <p>
+     * Obtain the corresponding syntax object based on syntax Name.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
+     * @param context    本次命令执行对应的变量上下文。
+     *                   <p>
+     *                   The variable context corresponding to this command execution.
+     * @return 当前对象，未找到参数之后的所有参数都不会被匹配。
+     * <p>
+     * The current object, all parameters after a not found parameter will not be matched.
+     */
+    @Override
+    public Syntax get(CharSequence syntaxName, VariableContext context) {
+        return this;
     }
 }
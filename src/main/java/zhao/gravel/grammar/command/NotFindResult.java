@@ -0,0 +1,131 @@
+package zhao.gravel.grammar.command;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 命令没有匹配到执行器时返回的结果对象，其是不可变的，其中记录了匹配失败的参数索引、停止匹配时所在的语法对象以及在此位置上期望出现的子语法名称。
+ * <p>
+ * The result object returned when a command does not match an executor. It is immutable and records the index of the parameter that failed to match, the syntax object where matching stopped, and the names of the sub syntax expected at this position.
+ * <p>
+ * PS：每一次创建此对象都会使停止匹配时所在的语法对象的未命中计数加一。
+ *
+ * @author zhao
+ */
+public final class NotFindResult {
+
+    private final Syntax node;
+    private final int tokenIndex;
+    private final String token;
+    private final boolean incomplete;
+
+    private NotFindResult(Syntax node, int tokenIndex, String token, boolean incomplete) {
+        this.node = node;
+        this.tokenIndex = tokenIndex;
+        this.token = token;
+        this.incomplete = incomplete;
+    }
+
+    /**
+     * 创建出一个未找到结果对象，并记录一次语法对象的未命中。
+     * <p>
+     * Create a not found result object and record a miss of the syntax object.
+     *
+     * @param node       停止匹配时所在的语法对象。
+     *                   <p>
+     *                   The syntax object where matching stopped.
+     * @param tokenIndex 匹配失败的参数索引。
+     *                   <p>
+     *                   The index of the parameter that failed to match.
+     * @param token      匹配失败的参数。
+     *                   <p>
+     *                   The parameter that failed to match.
+     * @return 未找到结果对象。
+     * <p>
+     * Not found result object.
+     */
+    public static NotFindResult create(Syntax node, int tokenIndex, String token) {
+        return create(node, tokenIndex, token, false);
+    }
+
+    /**
+     * 创建出一个代表命令在找到执行器之前就结束了的未找到结果对象，并记录一次语法对象的未命中。
+     * <p>
+     * Create a not found result object representing that the command ended before an executor was found, and record a miss of the syntax object.
+     *
+     * @param node       停止匹配时所在的语法对象。
+     *                   <p>
+     *                   The syntax object where matching stopped.
+     * @param tokenCount 命令中参数的数量。
+     *                   <p>
+     *                   The number of parameters in the command.
+     * @param lastToken  命令中的最后一个参数，命令中没有参数时为 null。
+     *                   <p>
+     *                   The last parameter in the command, or null if the command has no parameters.
+     * @return 未找到结果对象。
+     * <p>
+     * Not found result object.
+     */
+    public static NotFindResult createIncomplete(Syntax node, int tokenCount, String lastToken) {
+        return create(node, tokenCount, lastToken, true);
+    }
+
+    private static NotFindResult create(Syntax node, int tokenIndex, String token, boolean incomplete) {
+        final Syntax counted = node instanceof BoundSyntax ? ((BoundSyntax) node).getTemplate() : node;
+        if (counted instanceof GrammarParam) {
+            ((GrammarParam) counted).missCount.increment();
+        }
+        return new NotFindResult(node, tokenIndex, token, incomplete);
+    }
+
+    /**
+     * @return 停止匹配时所在的语法对象。
+     * <p>
+     * The syntax object where matching stopped.
+     */
+    public Syntax getNode() {
+        return this.node;
+    }
+
+    /**
+     * @return 匹配失败的参数索引，如果命令在找到执行器之前就结束了，这里是命令中参数的数量。
+     * <p>
+     * The index of the parameter that failed to match. If the command ended before an executor was found, this is the number of parameters in the command.
+     */
+    public int getTokenIndex() {
+        return this.tokenIndex;
+    }
+
+    /**
+     * @return 匹配失败的参数，如果命令在找到执行器之前就结束了，这里是命令中的最后一个参数。
+     * <p>
+     * The parameter that failed to match. If the command ended before an executor was found, this is the last parameter in the command.
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * @return 如果命令在找到执行器之前就结束了，这里返回 true。
+     * <p>
+     * If the command ended before an executor was found, return true here.
+     */
+    public boolean isIncomplete() {
+        return this.incomplete;
+    }
+
+    /**
+     * @return 在停止匹配的位置上期望出现的子语法名称，此列表由语法对象缓存，不会在每次未命中时重新计算。
+     * <p>
+     * The names of the sub syntax expected at the position where matching stopped. This list is cached by the syntax object and is not recalculated on every miss.
+     */
+    public List<String> getExpected() {
+        final Syntax node = this.node instanceof BoundSyntax ? ((BoundSyntax) this.node).getTemplate() : this.node;
+        return node instanceof GrammarParam ? ((GrammarParam) node).getExpectedNames() : Collections.emptyList();
+    }
+
+    @Override
+    public String toString() {
+        return "notFind ActuatorParam " + this.token;
+    }
+}
@@ -11,9 +11,28 @@ import java.util.Map;
 public class SaveParam extends GrammarParam {
 
     protected final HashMap<String, Object> hashMap;
+    /**
+     * 当前参数保存的变量在变量上下文中对应的槽位
+     * <p>
+     * The slot in the variable context corresponding to the variable saved by the current parameter
+     */
+    protected final int slot;
+    /**
+     * 当前参数保存的变量声明的类型
+     * <p>
+     * The declared type of the variable saved by the current parameter
+     */
+    protected final CaptureType captureType;
 
     protected SaveParam(String name, String help_info, HashMap<String, Object> hashMap, Syntax... allSyntax) {
+        this(name, help_info, CaptureType.STRING, hashMap, allSyntax);
+    }
+
+    protected SaveParam(String name, String help_info, CaptureType captureType, HashMap<String, Object> hashMap, Syntax... allSyntax) {
         super(name, help_info, allSyntax);
+        this.hashMap = hashMap;
+        this.slot = VariableSlots.slotOf(name);
+        this.captureType = captureType;
         for (Syntax syntax : allSyntax) {
             if (syntax instanceof SaveParam) {
                 final HashMap<String, Object> hashMap1 = ((SaveParam) syntax).getHashMap();
@@ -23,7 +42,6 @@ public class SaveParam extends GrammarParam {
                 }
             }
         }
-        this.hashMap = hashMap;
     }
 
     /**
@@ -62,6 +80,36 @@ public class SaveParam extends GrammarParam {
         return create(name, new HashMap<>(), allSyntax);
     }
 
+    /**
+     * 创建出一个保存指定类型变量的语法对象，变量会在执行器第一次读取的时候才按照此类型进行转换。
+     * <p>
+     * Create a syntax object that saves a variable of the specified type. The variable is converted according to this type only when the executor reads it for the first time.
+     *
+     * @param name        该语法对象对应的参数名称。
+     * @param captureType 该语法对象保存的变量的类型。
+     * @param allSyntax   该语法对象中的所有子语法对象
+     * @return 语法对象
+     */
+    public static Syntax create(String name, CaptureType captureType, Syntax... allSyntax) {
+        return create(name, name + ": No Help Info!!!!", captureType, new HashMap<>(), allSyntax);
+    }
+
+    /**
+     * 创建出一个保存指定类型变量的语法对象，变量会在执行器第一次读取的时候才按照此类型进行转换。
+     * <p>
+     * Create a syntax object that saves a variable of the specified type. The variable is converted according to this type only when the executor reads it for the first time.
+     *
+     * @param name        该语法对象对应的参数名称。
+     * @param help_info   该参数对象对应的帮助信息
+     * @param captureType 该语法对象保存的变量的类型。
+     * @param hashMap     该语法对象用于变量保存操作的容器。
+     * @param allSyntax   该语法对象中的所有子语法对象
+     * @return 语法对象
+     */
+    public static Syntax create(String name, String help_info, CaptureType captureType, HashMap<String, Object> hashMap, Syntax... allSyntax) {
+        return new SaveParam(name, help_info, captureType, hashMap, allSyntax);
+    }
+
     public void save(Object object) {
         this.hashMap.put(this.getSyntaxName(), object);
     }
@@ -70,6 +118,25 @@ public class SaveParam extends GrammarParam {
         return this.hashMap;
     }
 
+    /**
+     * @return 当前参数保存的变量在变量上下文中对应的槽位。
+     * <p>
+     * The slot in the variable context corresponding to the variable saved by the current parameter.
+     * @see VariableSlots
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
+    /**
+     * @return 当前参数保存的变量声明的类型。
+     * <p>
+     * The declared type of the variable saved by the current parameter.
+     */
+    public CaptureType getCaptureType() {
+        return this.captureType;
+    }
+
     /**
      * 根据 syntaxName 获取到对应的 syntax 对象。
      * <p>
@@ -93,6 +160,31 @@ public class SaveParam extends GrammarParam {
         return syntax;
     }
 
+    /**
+     * 根据 syntaxName 获取到对应的 syntax 对象，如果匹配到的是通配符参数，则会将当前参数保存到指定的上下文中。
+     * <p>
+     * Obtain the corresponding syntax object based on syntax Name. If a wildcard parameter is matched, the current parameter will be saved to the specified context.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command.
+     * @param context    本次命令执行对应的变量上下文。
+     *                   <p>
+     *                   The variable context corresponding to this command execution.
+     * @return syntaxName 对应的 syntax 对象。
+     * <p>
+     * The syntax object corresponding to syntax Name.
+     */
+    @Override
+    public Syntax get(CharSequence syntaxName, VariableContext context) {
+        final Syntax syntax = super.get(syntaxName, context);
+        if (WILDCARD.equals(syntax.getSyntaxName())) {
+            // 将当前参数存储到上下文中。
+            context.save(this, this.captureType.capture(syntaxName.toString()));
+        }
+        return syntax;
+    }
+
     /**
      * 向此语法对象添加子语法树对象，子语法树将可以被此语法树调用。
      * <p>
@@ -126,6 +218,28 @@ public class SaveParam extends GrammarParam {
         throw new UnsupportedOperationException("Please call the 'addSubSyntax (Syntax syntax)' function to append the sub syntax.");
     }
 
+    /**
+     * 使用一组新的子语法对象整体替换当前所有的子语法对象，支持变量保存的子语法对象会继承当前保存的所有变量。
+     * <p>
+     * Replace all current sub syntax objects with a new group of sub syntax objects as a whole. Sub syntax objects that support variable saving inherit all variables currently saved.
+     *
+     * @param allSyntax 新的子语法对象。
+     *                  <p>
+     *                  The new sub syntax objects.
+     * @return 被替换掉的子语法对象的只读映射表。
+     * <p>
+     * A read-only mapping table of the replaced sub syntax objects.
+     */
+    @Override
+    public synchronized Map<String, Syntax> replaceSubSyntax(Syntax... allSyntax) {
+        for (Syntax syntax : allSyntax) {
+            if (syntax instanceof SaveParam && ((SaveParam) syntax).hashMap != this.hashMap) {
+                ((SaveParam) syntax).hashMap.putAll(this.getHashMap());
+            }
+        }
+        return super.replaceSubSyntax(allSyntax);
+    }
+
     /**
      * 将 当前语法对象以及其子语法对象中用于变量存储的 list 对象 清空。
      * <p>
@@ -56,6 +56,29 @@ public interface Syntax extends Cloneable {
      */
     Syntax get(String syntaxName);
 
+    /**
+     * 根据 syntaxName 获取到对应的 syntax 对象，在获取过程中需要保存的变量将会被存储到指定的上下文中，而不是存储在语法对象中。
+     * <p>
+     * Obtain the corresponding syntax object based on syntax Name. The variables that need to be saved during the process will be stored in the specified context instead of the syntax object.
+     * <p>
+     * PS：默认实现会直接调用 get(String)，这样旧的语法对象实现仍然可以被使用，只是其中的变量仍然会保存在语法对象中。
+     * <p>
+     * The default implementation directly calls get(String), so old syntax object implementations can still be used, but their variables are still saved in the syntax object.
+     *
+     * @param syntaxName 需要获取的对象对应的名称，一般来说这里也就是命令的某个参数，其可能是一个会被复用的字符序列窗口，因此不应被直接保存。
+     *                   <p>
+     *                   The name of the object that needs to be obtained, which is generally a parameter of the command. It may be a reused character sequence window, so it should not be saved directly.
+     * @param context    本次命令执行对应的变量上下文。
+     *                   <p>
+     *                   The variable context corresponding to this command execution.
+     * @return syntaxName 对应的 syntax 对象。
+     * <p>
+     * The syntax object corresponding to syntax Name.
+     */
+    default Syntax get(CharSequence syntaxName, VariableContext context) {
+        return this.get(syntaxName.toString());
+    }
+
     /**
      * 获取到默认的语法对象，当无法获取到子语法的时候，将会直接调用此函数，并将函数返回的语法对象做为下一个执行。
      *
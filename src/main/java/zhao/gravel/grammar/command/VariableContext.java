@@ -0,0 +1,388 @@
+package zhao.gravel.grammar.command;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * 变量上下文对象，每一次命令的执行都会拥有一个属于自己的上下文，解析过程中由 SaveParam 保存的所有变量都会被存储在这里，而不是存储在语法树中。
+ * <p>
+ * Variable context object. Each command execution owns its own context, and all variables saved by SaveParam during parsing are stored here instead of in the syntax tree.
+ * <p>
+ * PS：由于变量不再存储于语法树中，同一个语法树可以被多个线程同时使用，每个线程只需要使用不同的上下文对象即可。
+ * <p>
+ * 变量与 VariableSlots 分配的槽位按照保存的顺序存储在两个数组中，数组的长度只与当前上下文中变量的数量有关，与全局槽位的数量无关，保存变量的时候不需要计算哈希值，清空之后数组会被复用。
+ * <p>
+ * Variables and the slots assigned by VariableSlots are stored in two arrays in the order of saving. The length of the arrays only depends on the number of variables in the current context, not on the number of global slots. Saving a variable does not require computing hash values, and the arrays are reused after clearing.
+ *
+ * @author zhao
+ */
+public class VariableContext {
+
+    /**
+     * 运行旧执行器的时候使用的锁，旧的变量容器只能被一个命令使用
+     */
+    private static final Object LEGACY_LOCK = new Object();
+    private static final ThreadLocal<VariableContext> LOCAL = ThreadLocal.withInitial(VariableContext::new);
+
+    /**
+     * 按照保存的顺序排列的变量槽位
+     */
+    private int[] slots;
+    /**
+     * 与 slots 一一对应的变量数值
+     */
+    private Object[] values;
+    private int size;
+    /**
+     * 与 slots 一一对应的保存变量的 SaveParam，第一次通过 SaveParam 保存变量的时候才会被分配，只在执行器没有重写 run(VariableContext) 的时候用于兼容旧的变量容器
+     */
+    private SaveParam[] owners;
+    private Object binding;
+    private VariableView view;
+    private boolean inUse;
+
+    public VariableContext() {
+        this.slots = new int[8];
+        this.values = new Object[8];
+    }
+
+    /**
+     * @param hashMap 需要被复制到当前上下文中的初始变量，之后对此容器的修改不会影响到当前上下文。
+     *                <p>
+     *                The initial variables that need to be copied into the current context. Subsequent modifications to this container will not affect the current context.
+     */
+    public VariableContext(HashMap<String, Object> hashMap) {
+        this();
+        hashMap.forEach(this::save);
+    }
+
+    /**
+     * 获取到当前线程可重复使用的上下文，如果当前线程的上下文正在被使用（例如执行器中又运行了一个命令），则会返回一个新的上下文。
+     * <p>
+     * Obtain the reusable context of the current thread. If the context of the current thread is in use (for example, another command is run in the executor), a new context will be returned.
+     * <p>
+     * PS：归还之后上下文会被清空并交给下一个命令使用，需要在命令运行结束之后继续保留变量的时候请使用 {@link #snapshot()}。
+     *
+     * @return 可以使用的变量上下文。
+     * <p>
+     * Variable context that can be used.
+     */
+    public static VariableContext acquire() {
+        final VariableContext context = LOCAL.get();
+        if (context.inUse) {
+            return new VariableContext();
+        }
+        context.inUse = true;
+        return context;
+    }
+
+    /**
+     * 归还当前上下文，归还之后上下文中不会再引用任何变量，如果上下文的视图已经被获取过，视图可能仍然被执行器持有，此时上下文不会被清空也不会再被复用。
+     * <p>
+     * Return the current context, after which the context no longer references any variables. If the view of the context has been obtained, the view may still be held by an executor, in which case the context is neither cleared nor reused.
+     */
+    public void release() {
+        if (!this.inUse) {
+            return;
+        }
+        this.inUse = false;
+        if (this.view != null) {
+            LOCAL.remove();
+            return;
+        }
+        this.clear();
+    }
+
+    /**
+     * 将一个变量保存到当前上下文中。
+     * <p>
+     * Save a variable to the current context.
+     *
+     * @param name  变量的名称，一般来说就是 SaveParam 的参数名称。
+     *              <p>
+     *              The name of the variable, usually the parameter name of SaveParam.
+     * @param value 变量的数值。
+     *              <p>
+     *              The value of the variable.
+     */
+    public void save(String name, Object value) {
+        this.save(VariableSlots.slotOf(name), value);
+    }
+
+    /**
+     * 将一个变量保存到当前上下文中指定的槽位，此操作不需要计算哈希值。
+     * <p>
+     * Save a variable to the specified slot of the current context, which does not need to compute hash values.
+     *
+     * @param slot  变量的槽位，由 VariableSlots 分配。
+     *              <p>
+     *              The slot of the variable, assigned by VariableSlots.
+     * @param value 变量的数值。
+     *              <p>
+     *              The value of the variable.
+     */
+    public void save(int slot, Object value) {
+        final int index = this.put(slot, value);
+        if (this.owners != null) {
+            this.owners[index] = null;
+        }
+    }
+
+    private int put(int slot, Object value) {
+        int index = this.indexOf(slot);
+        if (index == -1) {
+            if (this.size == this.slots.length) {
+                this.slots = Arrays.copyOf(this.slots, this.size << 1);
+                this.values = Arrays.copyOf(this.values, this.size << 1);
+                if (this.owners != null) {
+                    this.owners = Arrays.copyOf(this.owners, this.size << 1);
+                }
+            }
+            index = this.size++;
+            this.slots[index] = slot;
+        }
+        this.values[index] = value;
+        return index;
+    }
+
+    /**
+     * 一个上下文中的变量一般只有几个，因此直接按照顺序查找，不需要根据全局的槽位数量分配空间。
+     *
+     * @param slot 变量的槽位。
+     * @return 变量被保存的顺序，如果不存在则返回 -1。
+     */
+    private int indexOf(int slot) {
+        final int[] slots = this.slots;
+        for (int i = 0, size = this.size; i < size; i++) {
+            if (slots[i] == slot) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 将 SaveParam 捕获到的变量保存到当前上下文中，并记录下保存变量的参数对象，以便只重写了 run() 的执行器仍然能够从 SaveParam 的容器中读取到变量。
+     * <p>
+     * Save a variable captured by SaveParam to the current context, and record the parameter object that saved it, so that executors that only override run() can still read the variable from the container of the SaveParam.
+     *
+     * @param owner 保存变量的参数对象。
+     *              <p>
+     *              The parameter object that saves the variable.
+     * @param value 变量的数值。
+     *              <p>
+     *              The value of the variable.
+     */
+    public void save(SaveParam owner, Object value) {
+        final int index = this.put(owner.getSlot(), value);
+        if (this.owners == null) {
+            this.owners = new SaveParam[this.slots.length];
+        }
+        this.owners[index] = owner;
+    }
+
+    /**
+     * 运行只重写了 run() 的旧执行器，运行之前会将当前上下文中由 SaveParam 保存的变量写入到对应 SaveParam 的容器中，运行之后会清空这些容器，与旧版本中执行完命令之后清空变量的行为一致。
+     * <p>
+     * PS：旧的变量容器是被所有线程共享的，因此写入、运行与清空的过程会持有同一个全局锁，旧执行器之间会逐个运行，需要并发运行的执行器应重写 run(VariableContext)。
+     *
+     * @param actuator 需要运行的旧执行器。
+     * @return 执行器的运行结果。
+     */
+    Object runLegacy(ActuatorParam actuator) {
+        synchronized (LEGACY_LOCK) {
+            final SaveParam[] owners = this.owners;
+            if (owners == null) {
+                return actuator.run();
+            }
+            try {
+                for (int i = 0; i < this.size; i++) {
+                    if (owners[i] != null) {
+                        owners[i].save(this.getAt(i));
+                    }
+                }
+                return actuator.run();
+            } finally {
+                for (int i = 0; i < this.size; i++) {
+                    if (owners[i] != null) {
+                        owners[i].getHashMap().clear();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量的数值，如果不存在则返回 null。
+     * <p>
+     * The value of the variable, or null if it does not exist.
+     */
+    public Object get(String name) {
+        final int slot = VariableSlots.find(name);
+        return slot == -1 ? null : this.get(slot);
+    }
+
+    /**
+     * @param name 变量的名称。
+     * @return 变量中保存的原始对象。
+     */
+    Object raw(String name) {
+        final int slot = VariableSlots.find(name);
+        return slot == -1 ? null : this.raw(slot);
+    }
+
+    /**
+     * @param slot 变量的槽位。
+     *             <p>
+     *             The slot of the variable.
+     * @return 变量的数值，如果不存在则返回 null，声明了类型的变量会返回转换之后的数值。
+     * <p>
+     * The value of the variable, or null if it does not exist. Variables with a declared type return the converted value.
+     */
+    public Object get(int slot) {
+        final Object value = this.raw(slot);
+        return value instanceof Capture ? ((Capture) value).getValue() : value;
+    }
+
+    /**
+     * @param slot 变量的槽位。
+     * @return 槽位中保存的原始对象，声明了类型的变量会返回尚未转换的 Capture 对象。
+     */
+    Object raw(int slot) {
+        final int index = this.indexOf(slot);
+        return index == -1 ? null : this.values[index];
+    }
+
+    /**
+     * @param index 变量被保存的顺序。
+     * @return 第 index 个被保存的变量的原始对象。
+     */
+    Object rawAt(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * @param index 变量被保存的顺序。
+     * @return 第 index 个被保存的变量的数值，声明了类型的变量会返回转换之后的数值。
+     */
+    Object getAt(int index) {
+        final Object value = this.values[index];
+        return value instanceof Capture ? ((Capture) value).getValue() : value;
+    }
+
+    /**
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 如果当前上下文中保存了此变量就返回 true。
+     * <p>
+     * Returns true if the variable is saved in the current context.
+     */
+    public boolean contains(String name) {
+        final int slot = VariableSlots.find(name);
+        return slot != -1 && this.indexOf(slot) != -1;
+    }
+
+    /**
+     * @return 当前上下文中变量的数量。
+     * <p>
+     * The number of variables in the current context.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param index 变量被保存的顺序。
+     *              <p>
+     *              The order in which the variable was saved.
+     * @return 第 index 个被保存的变量的槽位。
+     * <p>
+     * The slot of the index-th saved variable.
+     */
+    public int slotAt(int index) {
+        return this.slots[index];
+    }
+
+    /**
+     * @return 当前上下文的只读视图，视图会随着上下文的变化而变化，此视图可以直接做为 ActuatorTF 的输入。
+     * <p>
+     * The read-only view of the current context. The view changes as the context changes, and can be used directly as the input of ActuatorTF.
+     */
+    public VariableView getView() {
+        VariableView view = this.view;
+        if (view == null) {
+            this.view = view = new VariableView(this);
+        }
+        return view;
+    }
+
+    /**
+     * @return 当前上下文中所有变量的只读快照，之后对当前上下文的修改不会影响到快照。
+     * <p>
+     * A read-only snapshot of all variables in the current context. Subsequent modifications to the current context will not affect the snapshot.
+     */
+    public VariableView snapshot() {
+        final VariableContext copy = new VariableContext();
+        copy.slots = Arrays.copyOf(this.slots, Math.max(this.size, 1));
+        copy.values = Arrays.copyOf(this.values, copy.slots.length);
+        copy.size = this.size;
+        return copy.getView();
+    }
+
+    /**
+     * @return 一个包含当前上下文中所有变量的 HashMap 副本。
+     * <p>
+     * A HashMap copy containing all variables in the current context.
+     * @deprecated 变量不再存储在 HashMap 中，此函数每次都会复制所有的变量，请使用 {@link #getView()}。
+     */
+    @Deprecated
+    public HashMap<String, Object> getHashMap() {
+        return this.getView().toHashMap();
+    }
+
+    /**
+     * 设置当前上下文的绑定对象，一般由 BoundSyntax 在匹配经过它的时候调用。
+     * <p>
+     * Set the binding object of the current context, which is generally called by BoundSyntax when matching passes through it.
+     *
+     * @param binding 绑定对象。
+     *                <p>
+     *                The binding object.
+     * @see BoundSyntax
+     */
+    public void bind(Object binding) {
+        this.binding = binding;
+    }
+
+    /**
+     * @return 最近一次匹配经过的 BoundSyntax 的绑定对象，没有经过任何 BoundSyntax 时返回 null。
+     * <p>
+     * The binding object of the BoundSyntax that matching passed through most recently, or null if no BoundSyntax was passed.
+     */
+    public Object getBinding() {
+        return this.binding;
+    }
+
+    /**
+     * 清空当前上下文中的所有变量与绑定对象，清空之后上下文可以被重新使用。
+     * <p>
+     * Clear all variables and the binding object in the current context, after which the context can be reused.
+     */
+    public void clear() {
+        Arrays.fill(this.values, 0, this.size, null);
+        if (this.owners != null) {
+            Arrays.fill(this.owners, 0, this.size, null);
+        }
+        this.size = 0;
+        this.binding = null;
+    }
+
+    @Override
+    public String toString() {
+        return this.getView().toString();
+    }
+}
@@ -0,0 +1,92 @@
+package zhao.gravel.grammar.command;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 变量槽位表，其会为每个变量名称分配一个固定的整数槽位，SaveParam 在构建语法树的时候就会获取到自己的槽位，之后保存变量只需要进行数组的写入操作，不需要计算哈希值。
+ * <p>
+ * Variable slot table, which assigns a fixed integer slot to each variable name. SaveParam obtains its own slot when the syntax tree is built, and saving a variable afterwards only requires an array write without computing hash values.
+ * <p>
+ * PS：槽位在整个进程中是唯一且不会被回收的，因此相同名称的变量在所有的语法树中都拥有相同的槽位。
+ *
+ * @author zhao
+ */
+public final class VariableSlots {
+
+    private static final ConcurrentHashMap<String, Integer> SLOTS = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[16];
+    private static volatile int count;
+
+    private VariableSlots() {
+    }
+
+    /**
+     * 获取到变量名称对应的槽位，如果变量名称还没有槽位，则会为其分配一个新的槽位。
+     * <p>
+     * Obtain the slot corresponding to the variable name. If the variable name does not have a slot yet, a new slot will be assigned to it.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量名称对应的槽位。
+     * <p>
+     * The slot corresponding to the variable name.
+     */
+    public static int slotOf(String name) {
+        final Integer slot = SLOTS.get(name);
+        return slot != null ? slot : register(name);
+    }
+
+    private static synchronized int register(String name) {
+        final Integer old = SLOTS.get(name);
+        if (old != null) {
+            return old;
+        }
+        final int slot = count;
+        String[] names = VariableSlots.names;
+        if (slot == names.length) {
+            names = Arrays.copyOf(names, slot << 1);
+        }
+        names[slot] = name;
+        // 先发布名称 再发布槽位 这样能够获取到槽位的线程一定能够获取到名称
+        VariableSlots.names = names;
+        count = slot + 1;
+        SLOTS.put(name, slot);
+        return slot;
+    }
+
+    /**
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量名称对应的槽位，没有槽位时返回 -1，此函数不会分配新的槽位。
+     * <p>
+     * The slot corresponding to the variable name, or -1 if there is no slot. This function does not assign new slots.
+     */
+    public static int find(String name) {
+        final Integer slot = SLOTS.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param slot 变量的槽位。
+     *             <p>
+     *             The slot of the variable.
+     * @return 槽位对应的变量名称。
+     * <p>
+     * The variable name corresponding to the slot.
+     */
+    public static String nameOf(int slot) {
+        return names[slot];
+    }
+
+    /**
+     * @return 当前已经分配的槽位数量。
+     * <p>
+     * The number of slots currently assigned.
+     */
+    public static int count() {
+        return count;
+    }
+}
@@ -0,0 +1,497 @@
+package zhao.gravel.grammar.command;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 变量上下文的只读视图，其会直接读取上下文中按照槽位存储的变量，不会复制任何数据，变量按照被保存的顺序排列。
+ * <p>
+ * A read-only view of the variable context, which reads the variables stored by slot in the context directly without copying any data. Variables are ordered by the order in which they were saved.
+ * <p>
+ * PS：为了兼容接收 HashMap 的 ActuatorTF，此类继承了 HashMap，但是其中所有的修改操作都会抛出 UnsupportedOperationException。
+ *
+ * @author zhao
+ */
+public final class VariableView extends HashMap<String, Object> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient VariableContext context;
+
+    VariableView(VariableContext context) {
+        this.context = context;
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("VariableView is read-only, please save variables through VariableContext.");
+    }
+
+    /**
+     * @return 视图对应的变量上下文中变量的数量。
+     */
+    @Override
+    public int size() {
+        return this.context.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.context.size() == 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        return key instanceof String ? this.context.get((String) key) : null;
+    }
+
+    /**
+     * 通过槽位获取到变量，此操作不需要计算哈希值。
+     * <p>
+     * Obtain a variable by slot, which does not need to compute hash values.
+     *
+     * @param slot 变量的槽位。
+     *             <p>
+     *             The slot of the variable.
+     * @return 变量的数值，如果不存在则返回 null。
+     * <p>
+     * The value of the variable, or null if it does not exist.
+     * @see VariableSlots
+     */
+    public Object get(int slot) {
+        return this.context.get(slot);
+    }
+
+    /**
+     * 获取到变量的 int 数值，声明为数值类型的变量只会被解析一次，并且不会进行装箱。
+     * <p>
+     * Obtain the int value of a variable. Variables declared as numeric types are parsed only once and are not boxed.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量的 int 数值。
+     * <p>
+     * The int value of the variable.
+     * @throws IllegalArgumentException 变量不存在或者无法被转换的时候抛出。
+     *                                  <p>
+     *                                  Thrown when the variable does not exist or can not be converted.
+     */
+    public int getInt(String name) {
+        final Object raw = this.context.raw(name);
+        return raw instanceof Capture ? ((Capture) raw).intValue() : CaptureType.toInt(Capture.asLong(raw, name), String.valueOf(raw));
+    }
+
+    /**
+     * 获取到变量的 long 数值，声明为数值类型的变量只会被解析一次，并且不会进行装箱。
+     * <p>
+     * Obtain the long value of a variable. Variables declared as numeric types are parsed only once and are not boxed.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量的 long 数值。
+     * <p>
+     * The long value of the variable.
+     * @throws IllegalArgumentException 变量不存在或者无法被转换的时候抛出。
+     *                                  <p>
+     *                                  Thrown when the variable does not exist or can not be converted.
+     */
+    public long getLong(String name) {
+        return Capture.asLong(this.context.raw(name), name);
+    }
+
+    /**
+     * 获取到变量的 double 数值，声明为数值类型的变量只会被解析一次，并且不会进行装箱。
+     * <p>
+     * Obtain the double value of a variable. Variables declared as numeric types are parsed only once and are not boxed.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量的 double 数值。
+     * <p>
+     * The double value of the variable.
+     * @throws IllegalArgumentException 变量不存在或者无法被转换的时候抛出。
+     *                                  <p>
+     *                                  Thrown when the variable does not exist or can not be converted.
+     */
+    public double getDouble(String name) {
+        return Capture.asDouble(this.context.raw(name), name);
+    }
+
+    /**
+     * 获取到变量按照逗号拆分之后的列表，声明为 LIST 类型的变量只会被拆分一次。
+     * <p>
+     * Obtain the list of a variable split by commas. Variables declared as the LIST type are split only once.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 不可修改的列表。
+     * <p>
+     * An unmodifiable list.
+     * @throws IllegalArgumentException 变量不存在或者无法被转换的时候抛出。
+     *                                  <p>
+     *                                  Thrown when the variable does not exist or can not be converted.
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getList(String name) {
+        final Object value = Capture.as(this.context.raw(name), CaptureType.LIST);
+        if (!(value instanceof List)) {
+            throw Capture.notConvertible(value, name, "list");
+        }
+        return (List<String>) value;
+    }
+
+    /**
+     * 获取到变量中使用空白字符或逗号分隔的多个 long 数值，声明为 LONG_ARRAY 类型的变量只会被解析一次。
+     * <p>
+     * Obtain multiple long values separated by whitespace or commas in a variable. Variables declared as the LONG_ARRAY type are parsed only once.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量中的所有 long 数值，请不要修改返回的数组。
+     * <p>
+     * All long values in the variable, please do not modify the returned array.
+     * @throws IllegalArgumentException 变量不存在或者无法被转换的时候抛出。
+     *                                  <p>
+     *                                  Thrown when the variable does not exist or can not be converted.
+     */
+    public long[] getLongArray(String name) {
+        final Object value = Capture.as(this.context.raw(name), CaptureType.LONG_ARRAY);
+        if (!(value instanceof long[])) {
+            throw Capture.notConvertible(value, name, "long[]");
+        }
+        return (long[]) value;
+    }
+
+    /**
+     * 获取到变量的字符串形式，声明为 QUOTED 类型的变量会返回去除引号之后的结果，其它声明了类型的变量会返回捕获到的原始参数。
+     * <p>
+     * Obtain the string form of a variable. Variables declared as the QUOTED type return the result without quotes, and other variables with a declared type return the captured original parameter.
+     *
+     * @param name 变量的名称。
+     *             <p>
+     *             The name of the variable.
+     * @return 变量的字符串形式，变量不存在时返回 null。
+     * <p>
+     * The string form of the variable, or null if the variable does not exist.
+     */
+    public String getString(String name) {
+        final Object raw = this.context.raw(name);
+        if (raw instanceof Capture && ((Capture) raw).getType() == CaptureType.QUOTED) {
+            return (String) ((Capture) raw).getValue();
+        }
+        return raw == null ? null : raw.toString();
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        return this.containsKey(key) ? this.get(key) : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && this.context.contains((String) key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return this.values().contains(value);
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        final VariableContext context = this.context;
+        for (int i = 0, size = context.size(); i < size; i++) {
+            final int slot = context.slotAt(i);
+            action.accept(VariableSlots.nameOf(slot), context.getAt(i));
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new ViewIterator<Map.Entry<String, Object>>() {
+                    @Override
+                    Map.Entry<String, Object> element(int slot) {
+                        return new AbstractMap.SimpleImmutableEntry<>(VariableSlots.nameOf(slot), VariableView.this.context.get(slot));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return VariableView.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                return new ViewIterator<String>() {
+                    @Override
+                    String element(int slot) {
+                        return VariableSlots.nameOf(slot);
+                    }
+                };
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return VariableView.this.containsKey(o);
+            }
+
+            @Override
+            public int size() {
+                return VariableView.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Object> values() {
+        return new AbstractCollection<Object>() {
+            @Override
+            public Iterator<Object> iterator() {
+                return new ViewIterator<Object>() {
+                    @Override
+                    Object element(int slot) {
+                        return VariableView.this.context.get(slot);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return VariableView.this.size();
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof Map)) {
+            return false;
+        }
+        final Map<?, ?> map = (Map<?, ?>) o;
+        if (map.size() != this.size()) {
+            return false;
+        }
+        final VariableContext context = this.context;
+        for (int i = 0, size = context.size(); i < size; i++) {
+            final int slot = context.slotAt(i);
+            final String name = VariableSlots.nameOf(slot);
+            final Object value = context.getAt(i);
+            if (value == null ? map.get(name) != null || !map.containsKey(name) : !value.equals(map.get(name))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        final VariableContext context = this.context;
+        for (int i = 0, size = context.size(); i < size; i++) {
+            final int slot = context.slotAt(i);
+            final Object value = context.getAt(i);
+            hash += VariableSlots.nameOf(slot).hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * 比较两个视图中的变量是否相同，声明了类型的变量会直接比较捕获到的原始参数，不会触发转换，一般用于缓存的键。
+     * <p>
+     * Compare whether the variables in two views are the same. Variables with a declared type compare the captured original parameters directly without triggering conversion. Generally used for cache keys.
+     *
+     * @param other 需要比较的另一个视图。
+     *              <p>
+     *              Another view to compare.
+     * @return 如果两个视图中的变量名称与原始对象都相同就返回 true。
+     * <p>
+     * Returns true if the variable names and original objects in the two views are the same.
+     */
+    public boolean contentEquals(VariableView other) {
+        final VariableContext context = this.context, that = other.context;
+        if (context.size() != that.size()) {
+            return false;
+        }
+        for (int i = 0, size = context.size(); i < size; i++) {
+            final int slot = context.slotAt(i);
+            final Object value = context.rawAt(i), thatValue = that.raw(slot);
+            if (value == null ? thatValue != null || !that.contains(VariableSlots.nameOf(slot)) : !value.equals(thatValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 与 contentEquals 一致的哈希值，不会触发转换。
+     * <p>
+     * The hash value consistent with contentEquals, which does not trigger conversion.
+     */
+    public int contentHashCode() {
+        int hash = 0;
+        final VariableContext context = this.context;
+        for (int i = 0, size = context.size(); i < size; i++) {
+            final int slot = context.slotAt(i);
+            final Object value = context.rawAt(i);
+            hash += slot ^ (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+
+    /**
+     * @return 所有变量的字符串形式，声明了类型的变量会使用捕获到的原始参数。
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder().append('{');
+        final VariableContext context = this.context;
+        for (int i = 0, size = context.size(); i < size; i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            final int slot = context.slotAt(i);
+            builder.append(VariableSlots.nameOf(slot)).append('=').append(context.rawAt(i));
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * @return 一个包含当前所有变量的可修改的 HashMap 副本。
+     * <p>
+     * A modifiable HashMap copy containing all current variables.
+     */
+    @Override
+    public Object clone() {
+        return this.toHashMap();
+    }
+
+    /**
+     * @return 一个包含当前所有变量的可修改的 HashMap 副本。
+     * <p>
+     * A modifiable HashMap copy containing all current variables.
+     */
+    public HashMap<String, Object> toHashMap() {
+        final HashMap<String, Object> hashMap = new HashMap<>();
+        this.forEach(hashMap::put);
+        return hashMap;
+    }
+
+    /**
+     * 序列化的时候使用普通的 HashMap 副本代替视图。
+     */
+    private Object writeReplace() {
+        return this.toHashMap();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ?> m) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw readOnly();
+    }
+
+    @Override
+    public void clear() {
+        throw readOnly();
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public boolean replace(String key, Object oldValue, Object newValue) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object replace(String key, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object computeIfPresent(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+        throw readOnly();
+    }
+
+    @Override
+    public void replaceAll(BiFunction<? super String, ? super Object, ?> function) {
+        throw readOnly();
+    }
+
+    private abstract class ViewIterator<E> implements Iterator<E> {
+
+        private int index;
+
+        abstract E element(int slot);
+
+        @Override
+        public boolean hasNext() {
+            return this.index < VariableView.this.context.size();
+        }
+
+        @Override
+        public E next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return this.element(VariableView.this.context.slotAt(this.index++));
+        }
+    }
+}
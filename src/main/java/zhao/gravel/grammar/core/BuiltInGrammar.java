@@ -14,6 +14,12 @@ public enum BuiltInGrammar {
      * SQL SELECT 系列的语法树对象
      */
     SQL_SELECT {
+
+        /**
+         * 被所有绑定语法对象共享的语法树模板，其中的执行器会从变量上下文的绑定对象中获取执行逻辑。
+         */
+        private final Syntax template = sqlSelect(new HashMap<>(), null);
+
         /**
          * @param hashMap  用于存储命令解析过程中需要保存的数据的容器。
          * @param transformation 该语法器执行器层的函数执行逻辑，其输入数据为每层的参数字符串，输出数据可以为null也可以为
@@ -23,102 +29,89 @@ public enum BuiltInGrammar {
          */
         @Override
         public Syntax get(HashMap<String, Object> hashMap, ActuatorTF... transformation) {
+            return sqlSelect(hashMap, transformation);
+        }
 
-            /* limit */
-            final Syntax limit = SaveParam.create("limit", hashMap,
-                    new ActuatorAliasParam(Syntax.WILDCARD, "这里输入的应为一个或两个数字，用于标识需要查询的部分数据范围。", "offset count") {
-                        @Override
-                        public Object run() {
-                            BuiltInGrammar.check(transformation, 5, "缺少[" + this.getAliasName() + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为4的位置。");
-                            return transformation[4].function(hashMap);
-                        }
-                    });
-
-            /* order by */
-            final ActuatorAliasParam orderByC = new ActuatorAliasParam(Syntax.WILDCARD, "这里输入的应为一个字符串，用于标识需要做为排序字段的字段名。", "Order by clause") {
-                @Override
-                public Object run() {
-                    BuiltInGrammar.check(transformation, 4, "缺少[" + this.getAliasName() + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为3的位置。");
-                    return transformation[3].function(hashMap);
-                }
-            };
-            final Syntax order_by = SaveParam.create(
-                    "order by", hashMap,
-                    orderByC
-            );
-            orderByC.addSubSyntax(limit);
-
-            /* group by */
-            final ActuatorAliasParam groupByC = new ActuatorAliasParam(Syntax.WILDCARD, "这里输入的应为一个字符串，用于标识需要做为分组字段的字段名。", "group by fieldName") {
-                /**
-                 * @return 当前执行器参数的执行逻辑函数，执行完毕之后会返回一个任意数据类型。
-                 * <p>
-                 * The execution logic function of the current executor parameter will return an arbitrary data type after execution.
-                 */
-                @Override
-                public Object run() {
-                    BuiltInGrammar.check(transformation, 3, "缺少[" + this.getAliasName() + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为2的位置。");
-                    return transformation[2].function(hashMap);
-                }
-            };
-            final Syntax group_by = SaveParam.create("group by", hashMap, groupByC);
-            groupByC.addSubSyntax(order_by);
-            groupByC.addSubSyntax(limit);
-
-            /* where 子句 */
-            final ActuatorParam whereC = new ActuatorAliasParam(Syntax.WILDCARD, "这里输入的应为一个等式/不等式，如果此等式成立则代表满足条件。", "Where clause condition") {
-
-                /**
-                 * @return 当前执行器参数的执行逻辑函数，执行完毕之后会返回一个任意数据类型。
-                 * <p>
-                 * The execution logic function of the current executor parameter will return an arbitrary data type after execution.
-                 */
-                @Override
-                public Object run() {
-                    BuiltInGrammar.check(transformation, 2, "缺少[" + this.getAliasName() + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为1的位置。");
-                    return transformation[1].function(hashMap);
-                }
-            };
-            whereC.addSubSyntax(group_by);
-            whereC.addSubSyntax(order_by);
-            whereC.addSubSyntax(limit);
-
-            /* table */
-            final ActuatorParam table = new ActuatorAliasParam(Syntax.WILDCARD, "这里输入的应为一个字符串，代表的是表的名字。", "table Name") {
-
-                @Override
-                public Object run() {
-                    BuiltInGrammar.check(transformation, 1, "缺少[" + this.getAliasName() + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为0的位置。");
-                    return transformation[0].function(hashMap);
-                }
-            };
-            table.addSubSyntax(
-                    SaveParam.create(
-                            "where", hashMap,
-                            whereC
-                    )
-            );
-            table.addSubSyntax(group_by);
-            table.addSubSyntax(order_by);
-            table.addSubSyntax(limit);
-
-            // 首先将 SQL 语法树准备出来 然后直接返回
-            return SaveParam.create(
-                    "select", "SQL 语法中的查询数据操作需要使用到的关键字。",
-                    hashMap,
-                    SaveParam.create(
-                            Syntax.WILDCARD, "此处应为被查询的字段",
-                            hashMap,
-                            SaveParam.create(
-                                    "from", "SQL 语法中常用于指定被操作/查询表的名字。",
-                                    hashMap,
-                                    table
-                            )
-                    )
-            );
+        /**
+         * @return 被所有绑定语法对象共享的语法树模板。
+         * <p>
+         * The syntax tree template shared by all bound syntax objects.
+         */
+        @Override
+        public Syntax template() {
+            return this.template;
         }
     };
 
+    /**
+     * 构建出 SQL SELECT 系列的语法树。
+     *
+     * @param hashMap        用于存储命令解析过程中需要保存的数据的容器。
+     * @param transformation 执行器层的函数执行逻辑，为 null 的时候执行器会从变量上下文的绑定对象中获取执行逻辑。
+     * @return SQL SELECT 系列的语法树。
+     */
+    private static Syntax sqlSelect(HashMap<String, Object> hashMap, ActuatorTF[] transformation) {
+        /* limit */
+        final Syntax limit = saveParam("limit", "limit: No Help Info!!!!", hashMap, transformation,
+                new BuiltInActuator(4, "这里输入的应为一个或两个数字，用于标识需要查询的部分数据范围。", "offset count", transformation, hashMap));
+
+        /* order by */
+        final ActuatorParam orderByC = new BuiltInActuator(3, "这里输入的应为一个字符串，用于标识需要做为排序字段的字段名。", "Order by clause", transformation, hashMap);
+        final Syntax order_by = saveParam(
+                "order by", "order by: No Help Info!!!!", hashMap, transformation,
+                orderByC
+        );
+        orderByC.addSubSyntax(limit);
+
+        /* group by */
+        final ActuatorParam groupByC = new BuiltInActuator(2, "这里输入的应为一个字符串，用于标识需要做为分组字段的字段名。", "group by fieldName", transformation, hashMap);
+        final Syntax group_by = saveParam("group by", "group by: No Help Info!!!!", hashMap, transformation, groupByC);
+        groupByC.addSubSyntax(order_by);
+        groupByC.addSubSyntax(limit);
+
+        /* where 子句 */
+        final ActuatorParam whereC = new BuiltInActuator(1, "这里输入的应为一个等式/不等式，如果此等式成立则代表满足条件。", "Where clause condition", transformation, hashMap);
+        whereC.addSubSyntax(group_by);
+        whereC.addSubSyntax(order_by);
+        whereC.addSubSyntax(limit);
+
+        /* table */
+        final ActuatorParam table = new BuiltInActuator(0, "这里输入的应为一个字符串，代表的是表的名字。", "table Name", transformation, hashMap);
+        table.addSubSyntax(
+                saveParam(
+                        "where", "where: No Help Info!!!!", hashMap, transformation,
+                        whereC
+                )
+        );
+        table.addSubSyntax(group_by);
+        table.addSubSyntax(order_by);
+        table.addSubSyntax(limit);
+
+        // 首先将 SQL 语法树准备出来 然后直接返回
+        return saveParam(
+                "select", "SQL 语法中的查询数据操作需要使用到的关键字。",
+                hashMap, transformation,
+                saveParam(
+                        Syntax.WILDCARD, "此处应为被查询的字段",
+                        hashMap, transformation,
+                        saveParam(
+                                "from", "SQL 语法中常用于指定被操作/查询表的名字。",
+                                hashMap, transformation,
+                                table
+                        )
+                )
+        );
+    }
+
+    /**
+     * 创建出 SQL 语法树中保存变量的参数对象，模板中的参数对象不会将变量保存到被所有绑定语法对象共享的容器中。
+     *
+     * @param transformation 执行器层的函数执行逻辑，为 null 的时候代表正在构建共享的语法树模板。
+     * @return 保存变量的参数对象。
+     */
+    private static Syntax saveParam(String name, String help_info, HashMap<String, Object> hashMap, ActuatorTF[] transformation, Syntax... allSyntax) {
+        return transformation == null ? new TemplateParam(name, help_info, hashMap, allSyntax) : SaveParam.create(name, help_info, hashMap, allSyntax);
+    }
 
     /**
      * 检查传递的匿名函数的数量是否正确
@@ -133,6 +126,20 @@ public enum BuiltInGrammar {
         }
     }
 
+    /**
+     * 检查并调用指定索引位置的匿名函数，匿名函数的输入数据为本次解析过程中保存的所有变量。
+     *
+     * @param actuatorTFS 所有的匿名函数组
+     * @param index       需要被调用的匿名函数的索引
+     * @param aliasName   调用匿名函数的执行器的别名，用于生成异常信息。
+     * @param hashMap     本次解析过程中保存的所有变量。
+     * @return 匿名函数的执行结果。
+     */
+    static Object apply(ActuatorTF[] actuatorTFS, int index, String aliasName, HashMap<String, Object> hashMap) {
+        check(actuatorTFS, index + 1, "缺少[" + aliasName + "]参数对应的执行逻辑，此逻辑应位于匿名表达式数组中索引为" + index + "的位置。");
+        return actuatorTFS[index].function(hashMap);
+    }
+
     /**
      * @param hashMap        用于存储命令解析过程中需要保存的数据的容器。
      *                       <p>
@@ -144,6 +151,13 @@ public enum BuiltInGrammar {
      */
     public abstract Syntax get(HashMap<String, Object> hashMap, ActuatorTF... transformation);
 
+    /**
+     * @return 被所有绑定语法对象共享的语法树模板，模板只会被构建一次，其中的执行器只能通过绑定语法对象以及变量上下文运行。
+     * <p>
+     * The syntax tree template shared by all bound syntax objects. The template is built only once, and the executors in it can only be run through bound syntax objects and a variable context.
+     */
+    public abstract Syntax template();
+
     /**
      * @param transformation 该语法器执行器层的函数执行逻辑，其输入数据为每层的参数字符串，输出数据可以为null也可以为
      * @return 指定模式下对应的语法对象组件，该组件可以直接被添加到回调器中。
@@ -154,7 +168,79 @@ public enum BuiltInGrammar {
         return this.get(new HashMap<>(), transformation);
     }
 
+    /**
+     * 将执行逻辑绑定到共享的语法树模板上，此操作只会创建一个 BoundSyntax 对象，不会重新构建语法树。
+     * <p>
+     * Bind the execution logic to the shared syntax tree template. This operation only creates a BoundSyntax object and does not rebuild the syntax tree.
+     * <p>
+     * PS：返回的语法对象只能通过回调器以及变量上下文运行，手动调用 get(String) 得到的执行器不能直接 run()，并且模板不能被修改，需要这些操作的时候请使用 get(ActuatorTF...)。
+     *
+     * @param transformation 该语法器执行器层的函数执行逻辑，其输入数据为本次解析过程中保存的所有变量。
+     *                       <p>
+     *                       The function execution logic of the executor layer of this syntax, whose input data is all variables saved during this parsing.
+     * @return 绑定了执行逻辑的语法对象组件，该组件可以直接被添加到回调器中。
+     * <p>
+     * The syntax object component bound with the execution logic, which can be directly added to the callback.
+     * @see BoundSyntax
+     */
+    public Syntax bind(ActuatorTF... transformation) {
+        return BoundSyntax.create(this.template(), transformation);
+    }
+
     public Syntax get(HashMap<String, Object> hashMap) {
         return this.get(hashMap, new ActuatorTF[0]);
     }
+
+    /**
+     * 内置语法中使用的执行器，其会调用执行逻辑数组中指定索引位置的执行逻辑，如果构造时没有提供执行逻辑，则会从变量上下文的绑定对象中获取。
+     */
+    private static final class BuiltInActuator extends ActuatorAliasParam {
+
+        private final int index;
+        private final ActuatorTF[] transformation;
+        private final HashMap<String, Object> hashMap;
+
+        BuiltInActuator(int index, String help_info, String aliasName, ActuatorTF[] transformation, HashMap<String, Object> hashMap) {
+            super(Syntax.WILDCARD, help_info, aliasName);
+            this.index = index;
+            this.transformation = transformation;
+            this.hashMap = hashMap;
+        }
+
+        @Override
+        public Object run() {
+            if (this.transformation == null) {
+                throw new UnsupportedOperationException("[" + this.getAliasName() + "]属于共享的语法树模板，只能通过绑定语法对象以及变量上下文运行，需要手动运行执行器的时候请使用 get(ActuatorTF...)。");
+            }
+            return BuiltInGrammar.apply(this.transformation, this.index, this.getAliasName(), this.hashMap);
+        }
+
+        @Override
+        public Object run(VariableContext context) {
+            ActuatorTF[] transformation = this.transformation;
+            if (transformation == null) {
+                final Object binding = context.getBinding();
+                if (!(binding instanceof ActuatorTF[])) {
+                    throw new UnsupportedOperationException("[" + this.getAliasName() + "]属于共享的语法树模板，变量上下文中没有绑定执行逻辑数组。");
+                }
+                transformation = (ActuatorTF[]) binding;
+            }
+            return BuiltInGrammar.apply(transformation, this.index, this.getAliasName(), context.getView());
+        }
+    }
+
+    /**
+     * 共享的语法树模板中保存变量的参数对象，模板会被所有的绑定语法对象以及线程共享，因此变量只会被保存到变量上下文中，没有上下文的旧版本解析方式只能用来查看语法树，不会保存任何变量。
+     */
+    private static final class TemplateParam extends SaveParam {
+
+        TemplateParam(String name, String help_info, HashMap<String, Object> hashMap, Syntax... allSyntax) {
+            super(name, help_info, hashMap, allSyntax);
+        }
+
+        @Override
+        public void save(Object object) {
+            // 共享的容器不能被写入
+        }
+    }
 }
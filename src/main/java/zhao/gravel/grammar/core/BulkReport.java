@@ -0,0 +1,79 @@
+package zhao.gravel.grammar.core;
+
+/**
+ * 批量运行命令的报告对象，其中包含命令的数量，出现异常的数量以及吞吐量等信息。
+ * <p>
+ * The report object for running commands in bulk, which contains information such as the number of commands, the number of exceptions and the throughput.
+ *
+ * @author zhao
+ */
+public final class BulkReport {
+
+    private final long commands;
+    private final long errors;
+    private final long chars;
+    private final long nanos;
+
+    BulkReport(long commands, long errors, long chars, long nanos) {
+        this.commands = commands;
+        this.errors = errors;
+        this.chars = chars;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return 被运行的命令数量，包含出现异常的命令。
+     * <p>
+     * The number of commands that were run, including commands with exceptions.
+     */
+    public long getCommands() {
+        return this.commands;
+    }
+
+    /**
+     * @return 运行时出现异常的命令数量。
+     * <p>
+     * The number of commands that threw an exception while running.
+     */
+    public long getErrors() {
+        return this.errors;
+    }
+
+    /**
+     * @return 被读取的字符数量。
+     * <p>
+     * The number of characters read.
+     */
+    public long getChars() {
+        return this.chars;
+    }
+
+    /**
+     * @return 批量运行花费的时间，单位是纳秒。
+     * <p>
+     * The time spent on the bulk run, in nanoseconds.
+     */
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    /**
+     * @return 每秒钟运行的命令数量。
+     * <p>
+     * The number of commands run per second.
+     */
+    public double getThroughput() {
+        return this.nanos == 0 ? 0 : this.commands * 1e9 / this.nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkReport{" +
+                "commands=" + this.commands +
+                ", errors=" + this.errors +
+                ", chars=" + this.chars +
+                ", millis=" + this.nanos / 1_000_000 +
+                ", throughput=" + String.format("%.1f", this.getThroughput()) + "/s" +
+                '}';
+    }
+}
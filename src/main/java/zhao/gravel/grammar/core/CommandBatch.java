@@ -0,0 +1,106 @@
+package zhao.gravel.grammar.core;
+
+import zhao.gravel.grammar.command.VariableContext;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量命令任务，其会将一批互不相关的命令不断的二分，直到每个子任务足够小，然后在 ForkJoinPool 中并行运行，运行结果会按照命令的顺序写入到结果数组中。
+ * <p>
+ * Batch command task, which keeps splitting a batch of independent commands in half until each subtask is small enough, and then runs them in parallel in a ForkJoinPool. The results are written to the result array in the order of the commands.
+ * <p>
+ * PS：每个命令都会使用一个新的变量上下文，重写了 run(VariableContext) 的执行器之间不会共享任何变量；只重写了 run() 的旧执行器需要从共享的 SaveParam 容器中读取变量，它们会在同一个全局锁上逐个运行，因此结果仍然正确，但是这部分执行不会并行。
+ *
+ * @author zhao
+ */
+final class CommandBatch extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 每个工作线程大约会被分配到的子任务数量，子任务越多负载越均衡
+     * <p>
+     * The approximate number of subtasks assigned to each worker thread, the more subtasks the more balanced the load
+     */
+    private static final int TASKS_PER_WORKER = 8;
+
+    private final SyntaxCallback callback;
+    private final List<String> commands;
+    private final String[][] splitCommands;
+    private final Object[] results;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    private CommandBatch(SyntaxCallback callback, List<String> commands, String[][] splitCommands, Object[] results, int from, int to, int threshold) {
+        this.callback = callback;
+        this.commands = commands;
+        this.splitCommands = splitCommands;
+        this.results = results;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    /**
+     * 在指定的线程池中并行运行一批命令。
+     *
+     * @param callback      运行命令使用的回调器。
+     * @param commands      需要被运行的字符串命令，与 splitCommands 只能有一个不为 null。
+     * @param splitCommands 需要被运行的已经拆分好的命令，与 commands 只能有一个不为 null。
+     * @param pool          运行命令使用的线程池。
+     * @return 与命令顺序一致的运行结果。
+     */
+    static List<Object> run(SyntaxCallback callback, List<String> commands, String[][] splitCommands, ForkJoinPool pool) {
+        final int size = commands != null ? commands.size() : splitCommands.length;
+        final Object[] results = new Object[size];
+        final int threshold = Math.max(1, size / (pool.getParallelism() * TASKS_PER_WORKER));
+        pool.invoke(new CommandBatch(callback, commands, splitCommands, results, 0, size, threshold));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 使用一个拥有指定并行度的临时线程池并行运行一批命令，运行结束之后线程池会被关闭。
+     *
+     * @param callback      运行命令使用的回调器。
+     * @param commands      需要被运行的字符串命令，与 splitCommands 只能有一个不为 null。
+     * @param splitCommands 需要被运行的已经拆分好的命令，与 commands 只能有一个不为 null。
+     * @param parallelism   并行度，也就是同时运行命令的线程数量。
+     * @return 与命令顺序一致的运行结果。
+     */
+    static List<Object> run(SyntaxCallback callback, List<String> commands, String[][] splitCommands, int parallelism) {
+        if (parallelism == ForkJoinPool.getCommonPoolParallelism()) {
+            return run(callback, commands, splitCommands, ForkJoinPool.commonPool());
+        }
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return run(callback, commands, splitCommands, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from > this.threshold) {
+            final int middle = (this.from + this.to) >>> 1;
+            invokeAll(
+                    new CommandBatch(this.callback, this.commands, this.splitCommands, this.results, this.from, middle, this.threshold),
+                    new CommandBatch(this.callback, this.commands, this.splitCommands, this.results, middle, this.to, this.threshold)
+            );
+            return;
+        }
+        if (this.commands != null) {
+            for (int i = this.from; i < this.to; i++) {
+                this.results[i] = this.callback.run(this.commands.get(i));
+            }
+        } else {
+            for (int i = this.from; i < this.to; i++) {
+                this.results[i] = this.callback.run(new VariableContext(), this.splitCommands[i]);
+            }
+        }
+    }
+}
@@ -2,14 +2,27 @@ package zhao.gravel.grammar.core;
 
 import zhao.gravel.grammar.command.ActuatorParam;
 import zhao.gravel.grammar.command.GrammarParam;
+import zhao.gravel.grammar.command.MermaidRenderer;
+import zhao.gravel.grammar.command.NotFindParam;
+import zhao.gravel.grammar.command.NotFindResult;
 import zhao.gravel.grammar.command.Syntax;
+import zhao.gravel.grammar.command.VariableContext;
+import zhao.gravel.grammar.core.cache.LruCache;
+import zhao.gravel.grammar.core.cache.ResultCache;
+import zhao.gravel.grammar.core.metrics.GrammarMetrics;
 import zhao.gravel.grammar.core.model.AnalyticalModel;
+import zhao.gravel.grammar.core.model.LazyParser;
 import zhao.gravel.grammar.core.model.Parser;
+import zhao.gravel.grammar.core.model.SpanParser;
+import zhao.gravel.grammar.core.model.TokenCursor;
+import zhao.gravel.grammar.core.model.TokenSpans;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
-import static zhao.gravel.grammar.command.NotFindParam.NOT_FIND;
 
 
 /**
@@ -21,7 +34,39 @@ import static zhao.gravel.grammar.command.NotFindParam.NOT_FIND;
  */
 public class CommandCallback extends GrammarParam implements SyntaxCallback {
 
-    protected Parser parser;
+    private static final Object[] NO_VALUES = new Object[0];
+
+    protected volatile Parser parser;
+    /**
+     * 当前的解析状态，每次解析器或者语法树发生变化的时候都会被替换为一个新的对象，命令缓存中只有使用当前状态得到的命令才会被使用
+     * <p>
+     * The current parsing state, which is replaced with a new object every time the parser or the syntax tree changes. Only commands in the command cache obtained with the current state are used
+     */
+    private volatile ParserState parserState;
+    /**
+     * 最近一次通过 setAnalyticalModel 设置的解析模式，语法树被替换之后会使用此模式重新获取解析器，直接设置解析器的时候为 null
+     * <p>
+     * The analytical model most recently set by setAnalyticalModel. The parser is obtained again with this model after the syntax tree is replaced. It is null when the parser is set directly
+     */
+    private volatile AnalyticalModel analyticalModel;
+    /**
+     * 当前回调器的指标对象，为 null 时代表没有开启指标
+     * <p>
+     * The metrics object of the current callback, null means metrics are not enabled
+     */
+    protected volatile GrammarMetrics metrics;
+    /**
+     * 当前回调器的执行器结果缓存，为 null 时代表没有开启结果缓存
+     * <p>
+     * The executor result cache of the current callback, null means the result cache is not enabled
+     */
+    protected volatile ResultCache resultCache;
+    /**
+     * 当前回调器的命令缓存，key 为原始的命令字符串，元素为解析之后得到的执行器以及需要保存的变量，为 null 时代表没有开启命令缓存
+     * <p>
+     * The command cache of the current callback, the key is the original command string and the element is the executor and the variables to be saved obtained after parsing, null means the command cache is not enabled
+     */
+    protected volatile LruCache<String, PreparedCommand> commandCache;
 
     /**
      * 实例化函数
@@ -66,7 +111,238 @@ public class CommandCallback extends GrammarParam implements SyntaxCallback {
      */
     @Override
     public void setAnalyticalModel(AnalyticalModel analyticalModel) {
-        this.parser = analyticalModel.getParser(this.getSyntaxName());
+        this.setParser(analyticalModel.getParser(this.getSyntaxName(), this));
+        this.analyticalModel = analyticalModel;
+    }
+
+    /**
+     * 直接设置本回调类在解析命令的时候要使用的解析器，适用于需要额外参数才能够构建的解析器，例如 RegularMultiGroupParser。
+     * <p>
+     * Directly set the parser to be used by this callback class when parsing commands, which is suitable for parsers that need extra arguments to be built, such as RegularMultiGroupParser.
+     *
+     * @param parser 需要使用的解析器对象。
+     *               <p>
+     *               The parser object that needs to be used.
+     */
+    public void setParser(Parser parser) {
+        this.parser = parser;
+        this.analyticalModel = null;
+        this.invalidateCommands(parser);
+    }
+
+    /**
+     * 发布一个新的解析状态并清空命令缓存，正在运行的命令使用旧的状态放入缓存中的命令不会再被使用。
+     */
+    private void invalidateCommands(Parser parser) {
+        this.parserState = new ParserState(parser);
+        final LruCache<String, PreparedCommand> commandCache = this.commandCache;
+        if (commandCache != null) {
+            // 缓存中的命令是使用旧的解析模式或语法树得到的
+            commandCache.clear();
+        }
+    }
+
+    /**
+     * 向回调器中添加语法树，添加之后会刷新依赖于语法树的解析器以及缓存。
+     * <p>
+     * Add a syntax tree to the callback, after which the parser and caches that depend on the syntax tree are refreshed.
+     *
+     * @param syntax 需要被添加的语法树。
+     *               <p>
+     *               The syntax tree that needs to be added.
+     */
+    @Override
+    public void addSubSyntax(Syntax syntax) {
+        super.addSubSyntax(syntax);
+        this.refresh();
+    }
+
+    /**
+     * 向回调器中添加语法树，添加之后会刷新依赖于语法树的解析器以及缓存。
+     * <p>
+     * Add syntax trees to the callback, after which the parser and caches that depend on the syntax tree are refreshed.
+     *
+     * @param allSyntax 需要被添加的语法树。
+     *                  <p>
+     *                  The syntax trees that need to be added.
+     */
+    @Override
+    public void addSubSyntax(Map<String, Syntax> allSyntax) {
+        super.addSubSyntax(allSyntax);
+        this.refresh();
+    }
+
+    /**
+     * 原子的将回调器中的所有语法树替换为新的版本，读取语法树的过程不需要任何锁，正在运行的命令会在旧的语法树上完成，之后的命令会使用新的语法树，适用于在运行过程中频繁的重新加载语法。
+     * <p>
+     * Atomically replace all syntax trees in the callback with a new version. Reading the syntax tree takes no locks; running commands finish on the old syntax trees, and subsequent commands use the new ones. Suitable for frequently reloading grammars at runtime.
+     * <p>
+     * PS：替换之后会使用原来的解析模式重新获取解析器，并清空命令缓存与结果缓存，编译出来的回调器不会受到影响，需要重新编译。
+     *
+     * @param allSyntax 新版本的语法树，需要在调用此函数之前构建完成。
+     *                  <p>
+     *                  The new version of the syntax trees, which needs to be built before calling this function.
+     * @return 被替换掉的语法树的只读映射表，可以用于回滚。
+     * <p>
+     * A read-only mapping table of the replaced syntax trees, which can be used for rollback.
+     */
+    @Override
+    public synchronized Map<String, Syntax> replaceSubSyntax(Syntax... allSyntax) {
+        final Map<String, Syntax> old = super.replaceSubSyntax(allSyntax);
+        this.refresh();
+        return old;
+    }
+
+    /**
+     * 语法树发生变化之后，重新获取依赖于语法树的解析器，并清空使用旧语法树得到的缓存。
+     */
+    private void refresh() {
+        final AnalyticalModel analyticalModel = this.analyticalModel;
+        if (analyticalModel != null) {
+            this.setAnalyticalModel(analyticalModel);
+        } else {
+            this.invalidateCommands(this.parser);
+        }
+        this.invalidateResults();
+    }
+
+    /**
+     * 开启当前回调器的指标，开启之后每个命令在拆分、语法树匹配以及执行器运行三个阶段的耗时，以及每个语法对象被匹配到的次数都会被记录，如果已经开启了指标，则返回已有的指标对象。
+     * <p>
+     * Enable the metrics of the current callback. After enabling, the time taken by each command in the three phases of splitting, syntax tree matching and executor running, as well as the number of times each syntax object is matched, will be recorded. If metrics are already enabled, the existing metrics object is returned.
+     *
+     * @return 当前回调器的指标对象。
+     * <p>
+     * The metrics object of the current callback.
+     */
+    public synchronized GrammarMetrics enableMetrics() {
+        GrammarMetrics metrics = this.metrics;
+        if (metrics == null) {
+            this.metrics = metrics = new GrammarMetrics(this);
+        }
+        return metrics;
+    }
+
+    /**
+     * 关闭当前回调器的指标，关闭之后运行命令不会再有任何的额外开销。
+     * <p>
+     * Disable the metrics of the current callback, after which running commands will no longer have any additional overhead.
+     */
+    public synchronized void disableMetrics() {
+        this.metrics = null;
+    }
+
+    /**
+     * @return 当前回调器的指标对象，没有开启指标时返回 null。
+     * <p>
+     * The metrics object of the current callback, or null if metrics are not enabled.
+     */
+    public GrammarMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * 开启当前回调器的执行器结果缓存，开启之后被标记为可缓存的执行器在变量相同的时候不会再次运行，而是直接返回缓存的结果，如果已经开启了结果缓存，则返回已有的缓存对象。
+     * <p>
+     * Enable the executor result cache of the current callback. After enabling, executors marked as cacheable will not run again for the same variables, and the cached result is returned directly. If the result cache is already enabled, the existing cache object is returned.
+     *
+     * @param maximumSize 缓存中最多能够存储的结果数量。
+     *                    <p>
+     *                    The maximum number of results that can be stored in the cache.
+     * @param ttl         结果的存活时间，小于等于 0 代表结果不会过期。
+     *                    <p>
+     *                    The time to live of results, less than or equal to 0 means results never expire.
+     * @param unit        存活时间的单位。
+     *                    <p>
+     *                    The unit of the time to live.
+     * @return 当前回调器的结果缓存对象。
+     * <p>
+     * The result cache object of the current callback.
+     * @see ActuatorParam#setCacheable(boolean)
+     */
+    public synchronized ResultCache enableResultCache(int maximumSize, long ttl, TimeUnit unit) {
+        ResultCache resultCache = this.resultCache;
+        if (resultCache == null) {
+            this.resultCache = resultCache = new ResultCache(maximumSize, ttl, unit);
+        }
+        return resultCache;
+    }
+
+    /**
+     * 关闭当前回调器的执行器结果缓存，所有的执行器都会被重新运行。
+     * <p>
+     * Disable the executor result cache of the current callback, and all executors will be run again.
+     */
+    public synchronized void disableResultCache() {
+        this.resultCache = null;
+    }
+
+    /**
+     * @return 当前回调器的执行器结果缓存，没有开启结果缓存时返回 null。
+     * <p>
+     * The executor result cache of the current callback, or null if the result cache is not enabled.
+     */
+    public ResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * 使当前回调器中缓存的所有执行器结果失效，没有开启结果缓存时不会进行任何操作。
+     * <p>
+     * Invalidate all executor results cached in the current callback. Nothing is done if the result cache is not enabled.
+     */
+    public void invalidateResults() {
+        final ResultCache resultCache = this.resultCache;
+        if (resultCache != null) {
+            resultCache.invalidateAll();
+        }
+    }
+
+    /**
+     * 开启当前回调器的命令缓存，开启之后重复出现的命令字符串不会再次被拆分以及匹配语法树，而是直接将缓存中记录的变量保存到上下文中并运行记录的执行器，如果已经开启了命令缓存，则返回已有的缓存对象。
+     * <p>
+     * Enable the command cache of the current callback. After enabling, repeated command strings will not be split and matched against the syntax tree again; instead, the variables recorded in the cache are saved to the context and the recorded executor is run directly. If the command cache is already enabled, the existing cache object is returned.
+     * <p>
+     * PS：解析器或者语法树发生变化之后，缓存会被清空；开启缓存之后 run(String) 会复用当前线程的变量上下文，执行器返回之后上下文会被清空，需要保留变量的执行器请使用 context.snapshot()。
+     *
+     * @param maximumSize  缓存中最多能够存储的命令数量。
+     *                     <p>
+     *                     The maximum number of commands that can be stored in the cache.
+     * @param maximumChars 缓存中所有命令字符串以及参数的字符总数上限，用于限制缓存占用的内存。
+     *                     <p>
+     *                     The upper limit of the total number of characters of all command strings and parameters in the cache, used to limit the memory used by the cache.
+     * @return 当前回调器的命令缓存对象，可以通过它获取命中与未命中的次数。
+     * <p>
+     * The command cache object of the current callback, through which the number of hits and misses can be obtained.
+     */
+    public synchronized LruCache<String, PreparedCommand> enableCommandCache(int maximumSize, long maximumChars) {
+        LruCache<String, PreparedCommand> commandCache = this.commandCache;
+        if (commandCache == null) {
+            this.commandCache = commandCache = new LruCache<>(maximumSize, maximumChars, CommandCallback::weigh);
+        }
+        return commandCache;
+    }
+
+    /**
+     * 关闭当前回调器的命令缓存，所有的命令都会被重新拆分。
+     * <p>
+     * Disable the command cache of the current callback, and all commands will be split again.
+     */
+    public synchronized void disableCommandCache() {
+        this.commandCache = null;
+    }
+
+    /**
+     * @return 当前回调器的命令缓存，没有开启命令缓存时返回 null。
+     * <p>
+     * The command cache of the current callback, or null if the command cache is not enabled.
+     */
+    public LruCache<String, PreparedCommand> getCommandCache() {
+        return this.commandCache;
+    }
+
+    private static long weigh(String command, PreparedCommand prepared) {
+        return command.length() + prepared.chars();
     }
 
     /**
@@ -83,7 +359,177 @@ public class CommandCallback extends GrammarParam implements SyntaxCallback {
      */
     @Override
     public Object run(String grammar) {
-        return this.run(this.parser.get(grammar));
+        return this.run((CharSequence) grammar);
+    }
+
+    /**
+     * 运行一个命令，在这里会把命令传递给语法树去逐一执行与处理，命令可以是任意的字符序列，例如一个会被复用的 StringBuilder。
+     * <p>
+     * Run a command, where it will be passed to the syntax tree for execution and processing one by one. The command can be any character sequence, such as a reused StringBuilder.
+     *
+     * @param grammar 需要被解析的命令，在这里是一个字符序列整体，回调类会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is a character sequence as a whole, and the callback class will automatically get it based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    public Object run(CharSequence grammar) {
+        final GrammarMetrics metrics = this.metrics;
+        // 只读取一次解析状态 这样语法树在运行过程中被替换也不会影响到当前命令
+        final ParserState state = this.parserState;
+        final Parser parser = state.parser;
+        final LruCache<String, PreparedCommand> commandCache = this.commandCache;
+        if (commandCache != null) {
+            // 开启了命令缓存 重复的命令只需要保存变量并运行执行器
+            final long start = metrics == null ? 0 : System.nanoTime();
+            final String command = grammar.toString();
+            PreparedCommand prepared = commandCache.get(command);
+            if (prepared == null || prepared.version != state) {
+                prepared = PreparedCommand.resolve(this, state, parser.get(command));
+                commandCache.put(command, prepared);
+            }
+            if (metrics != null) {
+                metrics.recordParse(System.nanoTime() - start);
+            }
+            // 命中缓存的命令不需要为每次运行分配新的上下文
+            final VariableContext context = VariableContext.acquire();
+            try {
+                return prepared.run(context, NO_VALUES);
+            } finally {
+                context.release();
+            }
+        }
+        if (parser instanceof LazyParser) {
+            // 使用惰性解析器 参数会在匹配的过程中被逐个拆分 匹配结果确定之后剩余的命令不会被拆分
+            try (TokenCursor cursor = ((LazyParser) parser).cursor(grammar)) {
+                return this.run(new VariableContext(), cursor);
+            }
+        }
+        if (parser instanceof SpanParser) {
+            // 使用区间解析器 拆分命令的时候不会为每个参数创建新的字符串
+            final TokenSpans spans = TokenSpans.acquire();
+            try {
+                if (metrics == null) {
+                    ((SpanParser) parser).get(grammar, spans);
+                } else {
+                    final long start = System.nanoTime();
+                    ((SpanParser) parser).get(grammar, spans);
+                    metrics.recordParse(System.nanoTime() - start);
+                }
+                return this.run(new VariableContext(), spans);
+            } finally {
+                spans.release();
+            }
+        }
+        if (metrics == null) {
+            return this.run(parser.get(grammar.toString()));
+        }
+        final long start = System.nanoTime();
+        final String[] tokens = parser.get(grammar.toString());
+        metrics.recordParse(System.nanoTime() - start);
+        return this.run(tokens);
+    }
+
+    /**
+     * 从字符输入流中逐个读取以换行符分隔的命令并运行，读取过程中会复用缓冲区，不会将整个输入一次性加载到内存中。
+     * <p>
+     * Read newline-delimited commands one by one from the character input stream and run them. Buffers are reused during reading, and the whole input will not be loaded into memory at once.
+     *
+     * @param reader 命令的来源，此函数不会关闭此数据流。
+     *               <p>
+     *               The source of the commands, this function will not close this stream.
+     * @param sink   用于接收每个命令运行结果的接收器。
+     *               <p>
+     *               The sink used to receive the running result of each command.
+     * @return 批量运行的报告，其中包含命令数量，异常数量以及吞吐量。
+     * <p>
+     * The report of the bulk run, which contains the number of commands, the number of exceptions and the throughput.
+     * @throws IOException 读取数据时出现错误。
+     */
+    public BulkReport runBulk(Reader reader, ResultSink sink) throws IOException {
+        return this.runBulk(reader, '\n', sink);
+    }
+
+    /**
+     * 从字符输入流中逐个读取以指定字符分隔的命令并运行，读取过程中会复用缓冲区，不会将整个输入一次性加载到内存中。
+     * <p>
+     * Read commands delimited by the specified character one by one from the character input stream and run them. Buffers are reused during reading, and the whole input will not be loaded into memory at once.
+     *
+     * @param reader    命令的来源，此函数不会关闭此数据流。
+     *                  <p>
+     *                  The source of the commands, this function will not close this stream.
+     * @param delimiter 命令之间的分隔符，如果是换行符，行尾的回车符会被自动去除。
+     *                  <p>
+     *                  The delimiter between commands. If it is a newline, the carriage return at the end of the line will be removed automatically.
+     * @param sink      用于接收每个命令运行结果的接收器。
+     *                  <p>
+     *                  The sink used to receive the running result of each command.
+     * @return 批量运行的报告。
+     * <p>
+     * The report of the bulk run.
+     * @throws IOException 读取数据时出现错误。
+     */
+    public BulkReport runBulk(Reader reader, char delimiter, ResultSink sink) throws IOException {
+        return new CommandStream(this, delimiter, sink).read(reader);
+    }
+
+    /**
+     * 从字节输入流中逐个读取以指定字符分隔的命令并运行，读取过程中会复用缓冲区，不会将整个输入一次性加载到内存中。
+     * <p>
+     * Read commands delimited by the specified character one by one from the byte input stream and run them. Buffers are reused during reading, and the whole input will not be loaded into memory at once.
+     *
+     * @param inputStream 命令的来源，此函数不会关闭此数据流。
+     *                    <p>
+     *                    The source of the commands, this function will not close this stream.
+     * @param charset     输入数据的字符集。
+     *                    <p>
+     *                    The character set of the input data.
+     * @param delimiter   命令之间的分隔符。
+     *                    <p>
+     *                    The delimiter between commands.
+     * @param sink        用于接收每个命令运行结果的接收器。
+     *                    <p>
+     *                    The sink used to receive the running result of each command.
+     * @return 批量运行的报告。
+     * <p>
+     * The report of the bulk run.
+     * @throws IOException 读取数据时出现错误。
+     */
+    public BulkReport runBulk(InputStream inputStream, Charset charset, char delimiter, ResultSink sink) throws IOException {
+        return this.runBulk(new InputStreamReader(inputStream, charset), delimiter, sink);
+    }
+
+    /**
+     * 将文件通道中的指定区域以内存映射的方式逐段读取，并逐个运行其中以指定字符分隔的命令，每次只会映射一个固定大小的窗口。
+     * <p>
+     * Read the specified region of the file channel segment by segment through memory mapping, and run the commands delimited by the specified character one by one. Only a fixed-size window is mapped at a time.
+     *
+     * @param channel   命令的来源，此函数不会关闭此通道。
+     *                  <p>
+     *                  The source of the commands, this function will not close this channel.
+     * @param position  需要读取的区域在文件中的起始位置。
+     *                  <p>
+     *                  The starting position of the region to be read in the file.
+     * @param size      需要读取的区域的字节数量。
+     *                  <p>
+     *                  The number of bytes of the region to be read.
+     * @param charset   文件数据的字符集。
+     *                  <p>
+     *                  The character set of the file data.
+     * @param delimiter 命令之间的分隔符。
+     *                  <p>
+     *                  The delimiter between commands.
+     * @param sink      用于接收每个命令运行结果的接收器。
+     *                  <p>
+     *                  The sink used to receive the running result of each command.
+     * @return 批量运行的报告。
+     * <p>
+     * The report of the bulk run.
+     * @throws IOException 读取数据时出现错误。
+     */
+    public BulkReport runBulk(FileChannel channel, long position, long size, Charset charset, char delimiter, ResultSink sink) throws IOException {
+        return new CommandStream(this, delimiter, sink).read(channel, position, size, charset);
     }
 
     /**
@@ -100,40 +546,259 @@ public class CommandCallback extends GrammarParam implements SyntaxCallback {
      */
     @Override
     public Object run(String... grammar) {
-        final Syntax first = grammar.length > 0 ? this.get(grammar[0]) : null;
+        return this.run(new VariableContext(), grammar);
+    }
+
+    /**
+     * 使用指定的变量上下文运行一个命令，解析过程中保存的所有变量都会被存储到此上下文中，因此不同的线程使用不同的上下文就可以同时运行命令。
+     * <p>
+     * Run a command with the specified variable context. All variables saved during parsing will be stored in this context, so different threads can run commands at the same time by using different contexts.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param grammar 需要被解析的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is an array of strings, and the callback class will not automatically get based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    @Override
+    public Object run(VariableContext context, String... grammar) {
+        final GrammarMetrics metrics = this.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
         Syntax now = this;
         final int lastIndex = grammar.length - 1;
         for (int i = 0, grammarLength = grammar.length; i < grammarLength; i++) {
-            // TODO 开始调试 假设 now=where s=where的C
-            String s = grammar[i];
-            // 获取语法 TODO where的C
-            final Syntax syntax = now.get(s);
-            // 判断是不是null TODO 不是
-            if (syntax == null) {
-                break;
+            // 获取语法 变量会被保存到上下文中
+            final Syntax syntax = now.get(grammar[i], context);
+            // 判断是不是没有找到
+            if (syntax == null || syntax instanceof NotFindParam) {
+                if (metrics != null) {
+                    metrics.recordWalk(System.nanoTime() - start);
+                }
+                return NotFindResult.create(now, i, grammar[i]);
             } else {
-                // TODO 更新 now 就是 whereC 的语法
                 now = syntax;
             }
+            if (metrics != null) {
+                metrics.hit(now);
+            }
             // 判断是否需要执行
             if (now instanceof ActuatorParam) {
                 // 如果需要执行就判断是否有子语句，没有就执行
-                final int nextIndex = i + 1;
-                if (i == lastIndex) {
-                    final Object run = ((ActuatorParam) now).run();
-                    clearVariable(first);
-                    return run;
-                }
-                final Syntax syntax1 = now.get(grammar[nextIndex]);
-                if (syntax1 == null) {
-                    final Object run = ((ActuatorParam) now).run();
-                    clearVariable(first);
-                    return run;
+                if (i == lastIndex || now.get(grammar[i + 1]) == null) {
+                    if (metrics != null) {
+                        metrics.recordWalk(System.nanoTime() - start);
+                    }
+                    return this.execute((ActuatorParam) now, context, metrics);
                 }
             }
         }
+        if (metrics != null) {
+            metrics.recordWalk(System.nanoTime() - start);
+        }
         // 如果到了最后都没有找到执行器，就代表没找到
-        return NOT_FIND.get(grammar[lastIndex]);
+        return NotFindResult.createIncomplete(now, grammar.length, lastIndex < 0 ? null : grammar[lastIndex]);
+    }
+
+    /**
+     * 使用指定的变量上下文运行一个已经被区间解析器拆分好的命令。
+     * <p>
+     * Run a command that has been split by the span parser with the specified variable context.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param spans   命令中每个参数对应的区间。
+     *                <p>
+     *                The span corresponding to each parameter in the command.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    protected Object run(VariableContext context, TokenSpans spans) {
+        final GrammarMetrics metrics = this.metrics;
+        final long start = metrics == null ? 0 : System.nanoTime();
+        Syntax now = this;
+        final int lastIndex = spans.size() - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            final Syntax syntax = now.get(spans.token(i), context);
+            if (syntax == null || syntax instanceof NotFindParam) {
+                if (metrics != null) {
+                    metrics.recordWalk(System.nanoTime() - start);
+                }
+                return NotFindResult.create(now, i, spans.toString(i));
+            } else {
+                now = syntax;
+            }
+            if (metrics != null) {
+                metrics.hit(now);
+            }
+            if (now instanceof ActuatorParam) {
+                if (i == lastIndex || now.get(spans.token(i + 1), context) == null) {
+                    if (metrics != null) {
+                        metrics.recordWalk(System.nanoTime() - start);
+                    }
+                    return this.execute((ActuatorParam) now, context, metrics);
+                }
+            }
+        }
+        if (metrics != null) {
+            metrics.recordWalk(System.nanoTime() - start);
+        }
+        return NotFindResult.createIncomplete(now, spans.size(), lastIndex < 0 ? null : spans.toString(lastIndex));
+    }
+
+    /**
+     * 使用指定的变量上下文运行一个由参数游标逐个拆分的命令，每个参数在被拆分出来之后会立即进行匹配，没有找到参数或者执行器被运行之后，剩余的命令不会被拆分。
+     * <p>
+     * Run a command split one by one by the parameter cursor with the specified variable context. Each parameter is matched immediately after it is split, and the rest of the command will not be split once a parameter is not found or an executor is run.
+     * <p>
+     * PS：拆分与匹配是交替进行的，开启指标之后每次拆分的耗时会被单独累加并记录到拆分阶段中，匹配阶段的耗时中不包含拆分的耗时。
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param cursor  用于逐个拆分命令中参数的游标。
+     *                <p>
+     *                The cursor used to split the parameters in the command one by one.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    protected Object run(VariableContext context, TokenCursor cursor) {
+        final GrammarMetrics metrics = this.metrics;
+        if (metrics != null) {
+            return this.run(context, cursor, metrics);
+        }
+        Syntax now = this;
+        int i = 0;
+        String token = cursor.advance() ? cursor.token() : null;
+        while (token != null) {
+            final Syntax syntax = now.get(token, context);
+            if (syntax == null || syntax instanceof NotFindParam) {
+                return NotFindResult.create(now, i, token);
+            }
+            now = syntax;
+            final String next = cursor.advance() ? cursor.token() : null;
+            if (now instanceof ActuatorParam && (next == null || now.get(next, context) == null)) {
+                return this.execute((ActuatorParam) now, context, null);
+            }
+            if (next == null) {
+                return NotFindResult.createIncomplete(now, i + 1, token);
+            }
+            token = next;
+            i++;
+        }
+        return NotFindResult.createIncomplete(now, 0, null);
+    }
+
+    /**
+     * 开启了指标的时候使用的惰性匹配过程，游标每次拆分参数的耗时会被累加到拆分阶段中，其余的耗时会被记录到匹配阶段中。
+     */
+    private Object run(VariableContext context, TokenCursor cursor, GrammarMetrics metrics) {
+        final long start = System.nanoTime();
+        Syntax now = this;
+        int i = 0;
+        String token = cursor.advance() ? cursor.token() : null;
+        long parse = System.nanoTime() - start;
+        while (token != null) {
+            final Syntax syntax = now.get(token, context);
+            if (syntax == null || syntax instanceof NotFindParam) {
+                record(metrics, start, parse);
+                return NotFindResult.create(now, i, token);
+            }
+            now = syntax;
+            metrics.hit(now);
+            final long before = System.nanoTime();
+            final String next = cursor.advance() ? cursor.token() : null;
+            parse += System.nanoTime() - before;
+            if (now instanceof ActuatorParam && (next == null || now.get(next, context) == null)) {
+                record(metrics, start, parse);
+                return this.execute((ActuatorParam) now, context, metrics);
+            }
+            if (next == null) {
+                record(metrics, start, parse);
+                return NotFindResult.createIncomplete(now, i + 1, token);
+            }
+            token = next;
+            i++;
+        }
+        record(metrics, start, parse);
+        return NotFindResult.createIncomplete(now, 0, null);
+    }
+
+    private static void record(GrammarMetrics metrics, long start, long parse) {
+        metrics.recordParse(parse);
+        metrics.recordWalk(System.nanoTime() - start - parse);
+    }
+
+    /**
+     * 运行匹配到的执行器，如果执行器是可缓存的并且开启了结果缓存，则优先使用缓存中的结果。
+     *
+     * @param actuator 匹配到的执行器。
+     * @param context  本次命令执行对应的变量上下文。
+     * @param metrics  当前回调器的指标对象，为 null 时代表没有开启指标。
+     * @return 执行器的运行结果。
+     */
+    Object execute(ActuatorParam actuator, VariableContext context, GrammarMetrics metrics) {
+        final ResultCache resultCache = this.resultCache;
+        if (resultCache != null && actuator.isCacheable()) {
+            return resultCache.get(actuator, context, () -> metrics == null ? actuator.run(context) : metrics.execute(actuator, context));
+        }
+        return metrics == null ? actuator.run(context) : metrics.execute(actuator, context);
+    }
+
+    /**
+     * 预编译一个命令，命令中的 "?" 参数是占位符，预编译时会在语法树中确定匹配路径以及需要运行的执行器，之后运行预编译的命令只需要提供占位符对应的值，不需要再拆分命令与匹配语法树。
+     * <p>
+     * Prepare a command. The "?" parameters in the command are placeholders. During preparation, the matching path and the executor to be run are determined in the syntax tree. Afterwards, running the prepared command only requires the values corresponding to the placeholders, without splitting the command and matching the syntax tree again.
+     * <p>
+     * PS：预编译之后对语法树的修改不会影响到预编译的命令。
+     *
+     * @param command 需要被预编译的命令，在这里是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be prepared, which is a string as a whole here. The callback class will automatically split it based on the parsing mode.
+     * @return 预编译的命令对象。
+     * <p>
+     * The prepared command object.
+     * @see PreparedCommand#PLACEHOLDER
+     */
+    public PreparedCommand prepare(String command) {
+        return this.prepare(this.parser.get(command));
+    }
+
+    /**
+     * 预编译一个已经拆分好的命令，命令中的 "?" 参数是占位符。
+     * <p>
+     * Prepare a split command, and the "?" parameters in the command are placeholders.
+     *
+     * @param command 需要被预编译的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be prepared, which is an array of strings here. The callback class will not automatically split it based on the parsing mode.
+     * @return 预编译的命令对象。
+     * <p>
+     * The prepared command object.
+     */
+    public PreparedCommand prepare(String... command) {
+        return PreparedCommand.create(this, command);
+    }
+
+    /**
+     * 将当前回调器中的语法树编译成为语法自动机，并返回使用此自动机的回调器，编译之后的回调器在匹配命令时只需要进行数组的查找操作。
+     * <p>
+     * Compile the syntax tree in the current callback into a syntax automaton, and return a callback that uses this automaton. The compiled callback only needs array lookups when matching commands.
+     * <p>
+     * PS：编译之后对语法树的修改不会影响到编译出来的回调器，如果语法树发生了变化，需要重新编译。
+     *
+     * @return 编译之后的回调器对象。
+     * <p>
+     * The compiled callback object.
+     */
+    public CompiledCallback compile() {
+        return CompiledCallback.compile(this);
     }
 
     /**
@@ -158,8 +823,11 @@ public class CommandCallback extends GrammarParam implements SyntaxCallback {
      */
     @Override
     public void toString(PrintWriter outStream) {
-        for (Syntax value : super.syntaxHashMap.values()) {
-            value.toString(outStream);
+        try {
+            MermaidRenderer.renderBody(this.getSubSyntax().values(), outStream);
+        } catch (IOException e) {
+            // PrintWriter 不会抛出异常
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -170,4 +838,16 @@ public class CommandCallback extends GrammarParam implements SyntaxCallback {
         this.toString(printWriter, false);
         return stringWriter.getBuffer().toString();
     }
+
+    /**
+     * 解析状态，其中包含了当前使用的解析器，对象本身的地址用于区分不同版本的解析器与语法树。
+     */
+    private static final class ParserState {
+
+        private final Parser parser;
+
+        ParserState(Parser parser) {
+            this.parser = parser;
+        }
+    }
 }
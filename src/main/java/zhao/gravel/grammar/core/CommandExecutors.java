@@ -0,0 +1,71 @@
+package zhao.gravel.grammar.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 命令执行器工具类，其提供异步运行命令时默认使用的执行器。
+ * <p>
+ * Command executor utility class, which provides the executor used by default when running commands asynchronously.
+ * <p>
+ * PS：在 JDK 21 以下的运行环境中，默认执行器是一个按需创建守护线程的线程池；在 JDK 21 以及以上的运行环境中，多版本 jar 包中的实现会为每个命令创建一个虚拟线程。
+ *
+ * @author zhao
+ */
+public final class CommandExecutors {
+
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private CommandExecutors() {
+    }
+
+    /**
+     * @return 异步运行命令时默认使用的执行器，此执行器被所有回调器共享，不能被关闭。
+     * <p>
+     * The executor used by default when running commands asynchronously. This executor is shared by all callbacks and can not be shut down.
+     */
+    public static Executor defaultExecutor() {
+        return Holder.EXECUTOR;
+    }
+
+    /**
+     * @return 如果默认执行器为每个命令使用一个虚拟线程，这里返回 true。
+     * <p>
+     * Returns true if the default executor uses a virtual thread for each command.
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+
+    /**
+     * 将执行器的运行结果转换成为 CompletableFuture，如果运行结果本身就是一个 CompletionStage，则会等待它完成，而不是将它做为结果。
+     * <p>
+     * Convert the running result of an executor into a CompletableFuture. If the running result itself is a CompletionStage, it will be waited for instead of being used as the result.
+     *
+     * @param result 执行器的运行结果。
+     *               <p>
+     *               The running result of the executor.
+     * @return 代表最终结果的 CompletableFuture。
+     * <p>
+     * A CompletableFuture representing the final result.
+     */
+    @SuppressWarnings("unchecked")
+    public static CompletableFuture<Object> flatten(Object result) {
+        if (result instanceof CompletionStage) {
+            return ((CompletionStage<Object>) result).toCompletableFuture();
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    private static final class Holder {
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "gravel-command-" + THREAD_ID.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,147 @@
+package zhao.gravel.grammar.core;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 命令流对象，其会将输入的字符数据按照分隔符拆分成为一个个命令并交给回调器运行，所有的缓冲区都会被复用。
+ * <p>
+ * Command stream object, which splits the input character data into commands by the delimiter and hands them to the callback for running. All buffers are reused.
+ *
+ * @author zhao
+ */
+final class CommandStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 内存映射模式下每次映射的窗口大小
+     * <p>
+     * The size of the window mapped each time in memory mapping mode
+     */
+    private static final long WINDOW_SIZE = 64L << 20;
+
+    private final CommandCallback callback;
+    private final char delimiter;
+    private final ResultSink sink;
+    private final StringBuilder command = new StringBuilder(256);
+    private final long start = System.nanoTime();
+    private long index;
+    private long errors;
+    private long chars;
+
+    CommandStream(CommandCallback callback, char delimiter, ResultSink sink) {
+        this.callback = callback;
+        this.delimiter = delimiter;
+        this.sink = sink;
+    }
+
+    /**
+     * 读取字符输入流中所有的命令并运行。
+     *
+     * @param reader 命令的来源。
+     * @return 批量运行的报告。
+     * @throws IOException 读取数据时出现错误。
+     */
+    BulkReport read(Reader reader) throws IOException {
+        final char[] buffer = new char[BUFFER_SIZE];
+        int length;
+        while ((length = reader.read(buffer)) != -1) {
+            for (int i = 0; i < length; i++) {
+                this.feed(buffer[i]);
+            }
+        }
+        return this.finish();
+    }
+
+    /**
+     * 以内存映射的方式逐个窗口的读取文件通道中的指定区域，并运行其中所有的命令，被窗口边界截断的多字节字符会在下一个窗口中继续解码。
+     *
+     * @param channel  命令的来源。
+     * @param position 需要读取的区域在文件中的起始位置。
+     * @param size     需要读取的区域的字节数量。
+     * @param charset  文件数据的字符集。
+     * @return 批量运行的报告。
+     * @throws IOException 读取数据时出现错误。
+     */
+    BulkReport read(FileChannel channel, long position, long size, Charset charset) throws IOException {
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
+        final long end = position + size;
+        while (position < end) {
+            final long length = Math.min(WINDOW_SIZE, end - position);
+            final MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            final boolean last = position + length >= end;
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, buffer, last);
+                this.drain(buffer);
+            } while (result.isOverflow());
+            if (bytes.position() == 0 && !last) {
+                throw new IOException("Unable to decode the data at position " + position + " with charset " + charset);
+            }
+            // 没有被解码的字节是一个不完整的字符 会在下一个窗口中重新映射
+            position += bytes.position();
+        }
+        while (decoder.flush(buffer).isOverflow()) {
+            this.drain(buffer);
+        }
+        this.drain(buffer);
+        return this.finish();
+    }
+
+    private void drain(CharBuffer buffer) {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.feed(buffer.get());
+        }
+        buffer.clear();
+    }
+
+    private void feed(char c) {
+        this.chars++;
+        if (c == this.delimiter) {
+            this.dispatch();
+        } else {
+            this.command.append(c);
+        }
+    }
+
+    private void dispatch() {
+        final StringBuilder command = this.command;
+        int length = command.length();
+        if (this.delimiter == '\n' && length > 0 && command.charAt(length - 1) == '\r') {
+            command.setLength(--length);
+        }
+        if (length == 0) {
+            // 空行不是命令
+            return;
+        }
+        final long index = this.index++;
+        final Object result;
+        try {
+            result = this.callback.run(command);
+        } catch (RuntimeException e) {
+            this.errors++;
+            this.sink.error(index, command, e);
+            command.setLength(0);
+            return;
+        }
+        this.sink.accept(index, command, result);
+        command.setLength(0);
+    }
+
+    private BulkReport finish() {
+        this.dispatch();
+        return new BulkReport(this.index, this.errors, this.chars, System.nanoTime() - this.start);
+    }
+}
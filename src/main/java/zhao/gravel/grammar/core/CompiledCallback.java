@@ -0,0 +1,142 @@
+package zhao.gravel.grammar.core;
+
+import zhao.gravel.grammar.command.VariableContext;
+import zhao.gravel.grammar.core.model.AnalyticalModel;
+import zhao.gravel.grammar.core.model.Parser;
+import zhao.gravel.grammar.core.model.SpanParser;
+import zhao.gravel.grammar.core.model.TokenSpans;
+
+/**
+ * 编译之后的命令回调函数类，其使用语法自动机来代替语法树进行命令的匹配，匹配过程中只需要进行数组的查找操作，一般由 CommandCallback.compile() 创建。
+ * <p>
+ * The compiled command callback function class, which uses a syntax automaton instead of a syntax tree to match commands. Only array lookups are required during matching. It is generally created by CommandCallback.compile().
+ *
+ * @author zhao
+ */
+public class CompiledCallback implements SyntaxCallback {
+
+    protected final String pattern;
+    protected final SyntaxAutomaton automaton;
+    protected Parser parser;
+
+    /**
+     * 实例化函数
+     *
+     * @param pattern   匹配模式字符串
+     * @param parser    解析命令时使用的解析器对象
+     * @param automaton 编译出来的语法自动机
+     */
+    protected CompiledCallback(String pattern, Parser parser, SyntaxAutomaton automaton) {
+        this.pattern = pattern;
+        this.parser = parser;
+        this.automaton = automaton;
+    }
+
+    /**
+     * 将一个回调器对象中的语法树编译成为编译之后的回调器对象，编译之后的回调器会继承原回调器的解析器。
+     *
+     * @param commandCallback 需要被编译的回调器对象。
+     * @return 编译之后的回调器对象。
+     */
+    public static CompiledCallback compile(CommandCallback commandCallback) {
+        return new CompiledCallback(commandCallback.getSyntaxName(), commandCallback.parser, SyntaxAutomaton.compile(commandCallback));
+    }
+
+    /**
+     * @return 当前回调器中使用的语法自动机。
+     * <p>
+     * The syntax automaton used in the current callback.
+     */
+    public SyntaxAutomaton getAutomaton() {
+        return this.automaton;
+    }
+
+    /**
+     * 设置本回调类在解析命令的时候要使用的语法解析模式。
+     *
+     * @param analyticalModel 需要使用的语法解析模式。
+     *                        <p>
+     *                        The syntax parsing mode that needs to be used.
+     * @see AnalyticalModel
+     */
+    @Override
+    public void setAnalyticalModel(AnalyticalModel analyticalModel) {
+        this.parser = analyticalModel.getParser(this.pattern, this.automaton.node(SyntaxAutomaton.ROOT));
+    }
+
+    /**
+     * 直接设置本回调类在解析命令的时候要使用的解析器。
+     * <p>
+     * Directly set the parser to be used by this callback class when parsing commands.
+     *
+     * @param parser 需要使用的解析器对象。
+     *               <p>
+     *               The parser object that needs to be used.
+     */
+    public void setParser(Parser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * 运行一个命令，在这里会把命令传递给语法自动机去匹配与处理。
+     * <p>
+     * Run a command, where it will be passed to the syntax automaton for matching and processing.
+     *
+     * @param grammar 需要被解析的命令，在这里是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is a string as a whole, and the callback class will automatically get it based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    @Override
+    public Object run(String grammar) {
+        if (this.parser instanceof SpanParser) {
+            final TokenSpans spans = TokenSpans.acquire();
+            try {
+                ((SpanParser) this.parser).get(grammar, spans);
+                return this.automaton.run(new VariableContext(), spans);
+            } finally {
+                spans.release();
+            }
+        }
+        return this.run(this.parser.get(grammar));
+    }
+
+    /**
+     * 运行一个命令，在这里会把命令传递给语法自动机去匹配与处理。
+     * <p>
+     * Run a command, where it will be passed to the syntax automaton for matching and processing.
+     *
+     * @param grammar 需要被解析的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is an array of strings, and the callback class will not automatically get based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    @Override
+    public Object run(String... grammar) {
+        return this.run(new VariableContext(), grammar);
+    }
+
+    /**
+     * 使用指定的变量上下文运行一个命令，解析过程中保存的所有变量都会被存储到此上下文中。
+     * <p>
+     * Run a command with the specified variable context, and all variables saved during parsing will be stored in this context.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param grammar 需要被解析的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is an array of strings, and the callback class will not automatically get based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    @Override
+    public Object run(VariableContext context, String... grammar) {
+        return this.automaton.run(context, grammar);
+    }
+}
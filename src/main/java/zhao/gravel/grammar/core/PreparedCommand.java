@@ -0,0 +1,254 @@
+package zhao.gravel.grammar.core;
+
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.BoundSyntax;
+import zhao.gravel.grammar.command.CaptureType;
+import zhao.gravel.grammar.command.GrammarParam;
+import zhao.gravel.grammar.command.NotFindParam;
+import zhao.gravel.grammar.command.SaveParam;
+import zhao.gravel.grammar.command.Syntax;
+import zhao.gravel.grammar.command.VariableContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预编译的命令对象，其在创建的时候就已经在语法树中确定了匹配路径、每个参数需要保存到的变量以及最终需要运行的执行器，运行时只需要将绑定的值保存到变量上下文中，不需要再拆分命令与匹配语法树，一般由 CommandCallback.prepare(String) 创建。
+ * <p>
+ * A prepared command object. When it is created, the matching path in the syntax tree, the variable each parameter needs to be saved to and the executor to be run are already determined. At runtime, only the bound values need to be saved to the variable context, and there is no need to split the command and match the syntax tree again. It is generally created by CommandCallback.prepare(String).
+ * <p>
+ * PS：命令中的 "?" 参数是占位符，其只能出现在通配符参数的位置，运行时会按照顺序使用绑定的值代替。
+ *
+ * @author zhao
+ */
+public final class PreparedCommand {
+
+    /**
+     * 命令中的占位符参数
+     * <p>
+     * The placeholder parameter in the command
+     */
+    public static final String PLACEHOLDER = "?";
+
+    private final CommandCallback callback;
+    private final ActuatorParam actuator;
+    private final Object binding;
+    private final SaveParam[] owners;
+    private final CaptureType[] types;
+    private final String[] fixedValues;
+    private final int[] placeholderIndex;
+    private final int placeholderCount;
+    private final String[] tokens;
+    /**
+     * 创建当前命令时回调器的解析状态，命令缓存使用它判断缓存中的命令是否是使用当前的解析器与语法树得到的
+     */
+    final Object version;
+
+    private PreparedCommand(CommandCallback callback, ActuatorParam actuator, Object binding, SaveParam[] owners, CaptureType[] types,
+                            String[] fixedValues, int[] placeholderIndex, int placeholderCount, String[] tokens, Object version) {
+        this.callback = callback;
+        this.actuator = actuator;
+        this.binding = binding;
+        this.owners = owners;
+        this.types = types;
+        this.fixedValues = fixedValues;
+        this.placeholderIndex = placeholderIndex;
+        this.placeholderCount = placeholderCount;
+        this.tokens = tokens;
+        this.version = version;
+    }
+
+    /**
+     * 在回调器的语法树中解析已经拆分好的命令，并创建出对应的预编译命令对象。
+     *
+     * @param callback 需要使用的回调器对象。
+     * @param tokens   已经被拆分好的命令参数，其中可以包含占位符。
+     * @return 预编译的命令对象。
+     */
+    static PreparedCommand create(CommandCallback callback, String... tokens) {
+        return create(callback, tokens, true, null);
+    }
+
+    /**
+     * 在回调器的语法树中解析一个不包含占位符的命令，命令缓存会使用它记录命令需要运行的执行器以及需要保存的变量。
+     *
+     * @param callback 需要使用的回调器对象。
+     * @param version  回调器当前的解析状态。
+     * @param tokens   已经被拆分好的命令参数，其中的 "?" 会被当作普通的参数。
+     * @return 预编译的命令对象，命令无法匹配到执行器的时候，返回的对象在运行时会重新匹配语法树，以便得到对应的未找到结果。
+     */
+    static PreparedCommand resolve(CommandCallback callback, Object version, String[] tokens) {
+        final PreparedCommand prepared = create(callback, tokens, false, version);
+        return prepared != null ? prepared : new PreparedCommand(
+                callback, null, null, new SaveParam[0], new CaptureType[0], new String[0], new int[0], 0, tokens, version
+        );
+    }
+
+    /**
+     * @param placeholders 如果为 true，"?" 参数会被当作占位符，并且无法预编译的时候会抛出异常，否则无法预编译的时候返回 null。
+     */
+    private static PreparedCommand create(CommandCallback callback, String[] tokens, boolean placeholders, Object version) {
+        final VariableContext probe = new VariableContext();
+        final ArrayList<SaveParam> slots = new ArrayList<>();
+        final ArrayList<String> fixedValues = new ArrayList<>();
+        final ArrayList<Integer> placeholderIndex = new ArrayList<>();
+        int placeholderCount = 0;
+        Syntax now = callback;
+        final int lastIndex = tokens.length - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            final String token = tokens[i];
+            final boolean placeholder = placeholders && PLACEHOLDER.equals(token);
+            final Syntax node;
+            if (now instanceof BoundSyntax) {
+                probe.bind(((BoundSyntax) now).getBinding());
+                node = ((BoundSyntax) now).getTemplate();
+            } else {
+                node = now;
+            }
+            final Syntax syntax = placeholder ? node.getDefault(Syntax.WILDCARD) : node.get(token, probe);
+            if (syntax == null || syntax instanceof NotFindParam || placeholder && !Syntax.WILDCARD.equals(syntax.getSyntaxName())) {
+                if (!placeholders) {
+                    return null;
+                }
+                throw new IllegalArgumentException("Unable to prepare the command " + Arrays.toString(tokens) + ", [" + token + "] at index " + i
+                        + " can not follow [" + now.getSyntaxName() + "], expected: " + expectedNames(now));
+            }
+            if (node instanceof SaveParam && Syntax.WILDCARD.equals(syntax.getSyntaxName())) {
+                // 记录下此参数需要被保存到的变量 占位符的值在运行时才会被确定
+                slots.add((SaveParam) node);
+                fixedValues.add(placeholder ? null : token);
+                placeholderIndex.add(placeholder ? placeholderCount : -1);
+            }
+            if (placeholder) {
+                placeholderCount++;
+            }
+            now = syntax;
+            if (now instanceof ActuatorParam && (i == lastIndex || isEnd(now, tokens[i + 1], placeholders))) {
+                if (placeholders && i != lastIndex && Arrays.asList(tokens).subList(i + 1, tokens.length).contains(PLACEHOLDER)) {
+                    throw new IllegalArgumentException("The placeholders after [" + now.getSyntaxName() + "] will never be used: " + Arrays.toString(tokens));
+                }
+                final int[] indexes = new int[placeholderIndex.size()];
+                final CaptureType[] types = new CaptureType[indexes.length];
+                for (int p = 0; p < indexes.length; p++) {
+                    indexes[p] = placeholderIndex.get(p);
+                    types[p] = slots.get(p).getCaptureType();
+                }
+                return new PreparedCommand(
+                        callback, (ActuatorParam) now, probe.getBinding(), slots.toArray(new SaveParam[0]), types,
+                        fixedValues.toArray(new String[0]), indexes, placeholderCount, placeholders ? tokens.clone() : tokens, version
+                );
+            }
+        }
+        if (!placeholders) {
+            return null;
+        }
+        throw new IllegalArgumentException("Unable to prepare the command " + Arrays.toString(tokens) + ", no executor was reached after ["
+                + now.getSyntaxName() + "], expected: " + expectedNames(now));
+    }
+
+    /**
+     * @return 在指定语法对象后面期望出现的子语法名称，用于生成异常信息，此操作不会记录语法对象的未命中。
+     */
+    private static List<String> expectedNames(Syntax node) {
+        final Syntax template = node instanceof BoundSyntax ? ((BoundSyntax) node).getTemplate() : node;
+        return template instanceof GrammarParam ? ((GrammarParam) template).getExpectedNames() : Collections.emptyList();
+    }
+
+    /**
+     * @return 如果执行器后面的参数无法继续匹配，执行器就会在此处运行，此时返回 true。
+     */
+    private static boolean isEnd(Syntax actuator, String next, boolean placeholders) {
+        if (placeholders && PLACEHOLDER.equals(next)) {
+            return actuator.getDefault(Syntax.WILDCARD) == null;
+        }
+        return actuator.get(next, new VariableContext()) == null;
+    }
+
+    /**
+     * @return 命令中占位符的数量，运行时需要提供相同数量的值。
+     * <p>
+     * The number of placeholders in the command. The same number of values needs to be provided at runtime.
+     */
+    public int getPlaceholderCount() {
+        return this.placeholderCount;
+    }
+
+    /**
+     * @return 当前命令最终需要运行的执行器，命令缓存中无法匹配到执行器的命令返回 null。
+     * <p>
+     * The executor that the current command needs to run eventually, or null for commands in the command cache that do not match an executor.
+     */
+    public ActuatorParam getActuator() {
+        return this.actuator;
+    }
+
+    /**
+     * 使用绑定的值运行当前命令。
+     * <p>
+     * Run the current command with the bound values.
+     *
+     * @param values 按照顺序与每个占位符对应的值。
+     *               <p>
+     *               The values corresponding to each placeholder in order.
+     * @return 执行器的运行结果。
+     * <p>
+     * The running result of the executor.
+     */
+    public Object run(Object... values) {
+        return this.run(new VariableContext(), values);
+    }
+
+    /**
+     * 使用指定的变量上下文以及绑定的值运行当前命令。
+     * <p>
+     * Run the current command with the specified variable context and the bound values.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param values  按照顺序与每个占位符对应的值。
+     *                <p>
+     *                The values corresponding to each placeholder in order.
+     * @return 执行器的运行结果。
+     * <p>
+     * The running result of the executor.
+     */
+    public Object run(VariableContext context, Object... values) {
+        if (this.actuator == null) {
+            // 无法匹配到执行器的命令 重新匹配语法树以便得到对应的未找到结果
+            return this.callback.run(context, this.tokens);
+        }
+        if (values.length != this.placeholderCount) {
+            throw new IllegalArgumentException("The command " + this + " requires " + this.placeholderCount + " values, but got: " + values.length);
+        }
+        final SaveParam[] owners = this.owners;
+        for (int i = 0; i < owners.length; i++) {
+            final int index = this.placeholderIndex[i];
+            final Object value = index == -1 ? this.fixedValues[i] : values[index];
+            // 绑定的字符串与命令中的参数一样按照声明的类型延迟转换 其它对象会被原样保存
+            context.save(owners[i], value instanceof String ? this.types[i].capture((String) value) : value);
+        }
+        if (this.binding != null) {
+            context.bind(this.binding);
+        }
+        return this.callback.execute(this.actuator, context, this.callback.metrics);
+    }
+
+    /**
+     * @return 命令中所有参数的字符数量，命令缓存使用它限制缓存占用的内存。
+     */
+    long chars() {
+        long chars = 0;
+        for (String token : this.tokens) {
+            chars += token.length();
+        }
+        return chars;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(" ", this.tokens);
+    }
+}
@@ -0,0 +1,46 @@
+package zhao.gravel.grammar.core;
+
+/**
+ * 批量运行命令时用于接收每个命令运行结果的接收器。
+ * <p>
+ * A sink used to receive the running result of each command when running commands in bulk.
+ *
+ * @author zhao
+ */
+public interface ResultSink {
+
+    /**
+     * 接收一个命令的运行结果。
+     * <p>
+     * Receive the running result of a command.
+     *
+     * @param index   命令在输入数据中的序号，从 0 开始。
+     *                <p>
+     *                The sequence number of the command in the input data, starting from 0.
+     * @param command 被运行的命令，其是一个会被复用的缓冲区，因此只在当前函数调用期间有效，如果需要保存请调用 toString。
+     *                <p>
+     *                The command that was run. It is a buffer that will be reused, so it is only valid during the current function call. Call toString if it needs to be saved.
+     * @param result  命令的运行结果。
+     *                <p>
+     *                The running result of the command.
+     */
+    void accept(long index, CharSequence command, Object result);
+
+    /**
+     * 接收一个命令运行时出现的异常，默认情况下会忽略异常，异常的数量会被统计到批量运行报告中。
+     * <p>
+     * Receive an exception that occurred while running a command. By default, the exception is ignored, and the number of exceptions will be counted in the bulk run report.
+     *
+     * @param index     命令在输入数据中的序号，从 0 开始。
+     *                  <p>
+     *                  The sequence number of the command in the input data, starting from 0.
+     * @param command   被运行的命令，其只在当前函数调用期间有效。
+     *                  <p>
+     *                  The command that was run, which is only valid during the current function call.
+     * @param exception 命令运行时出现的异常。
+     *                  <p>
+     *                  The exception that occurred while running the command.
+     */
+    default void error(long index, CharSequence command, Throwable exception) {
+    }
+}
@@ -0,0 +1,405 @@
+package zhao.gravel.grammar.core;
+
+import zhao.gravel.grammar.command.*;
+import zhao.gravel.grammar.core.model.TokenSpans;
+
+import java.util.*;
+
+/**
+ * 语法自动机对象，其是由语法树编译出来的不可变的状态转移表，每个语法对象都会对应一个状态编号，每个参数名称都会对应一个 token 编号，命令的匹配只需要进行数组的查找操作。
+ * <p>
+ * Syntax automaton object, which is an immutable state transition table compiled from a syntax tree. Each syntax object corresponds to a state id and each parameter name corresponds to a token id, so matching a command only requires array lookups.
+ * <p>
+ * PS：自动机在编译之后就不会再感知语法树的变化，如果语法树发生了变化，需要重新编译。
+ *
+ * @author zhao
+ */
+public final class SyntaxAutomaton {
+
+    /**
+     * 没有找到对应参数时的状态编号，对应的是 NotFindParam。
+     * <p>
+     * The state id when the corresponding parameter is not found, which corresponds to NotFindParam.
+     */
+    public static final int MISS = -1;
+
+    /**
+     * 状态转移表中不存在对应边时的返回值，此时应使用通配符对应的默认边。
+     * <p>
+     * The return value when there is no corresponding edge in the state transition table, the default edge of the wildcard should be used at this time.
+     */
+    public static final int NONE = -2;
+
+    /**
+     * 根状态的编号。
+     * <p>
+     * The id of the root state.
+     */
+    public static final int ROOT = 0;
+
+    private static final long EMPTY = -1L;
+
+    private final Syntax[] nodes;
+    private final int[] defaultEdge;
+    private final SaveParam[] captureParam;
+    private final CaptureType[] captureType;
+    private final int[] actuatorIndex;
+    private final ActuatorParam[] actuators;
+    private final Object[] bindings;
+    private final CaseFoldMap<Integer> tokenIds;
+    private final long[] edgeKeys;
+    private final int[] edgeValues;
+    private final String[] edgeExactNames;
+    private final int mask;
+
+    private SyntaxAutomaton(Syntax[] nodes, int[] defaultEdge, SaveParam[] captureParam, CaptureType[] captureType,
+                            int[] actuatorIndex, ActuatorParam[] actuators, Object[] bindings, CaseFoldMap<Integer> tokenIds,
+                            long[] edgeKeys, int[] edgeValues, String[] edgeExactNames) {
+        this.nodes = nodes;
+        this.defaultEdge = defaultEdge;
+        this.captureParam = captureParam;
+        this.captureType = captureType;
+        this.actuatorIndex = actuatorIndex;
+        this.actuators = actuators;
+        this.bindings = bindings;
+        this.tokenIds = tokenIds;
+        this.edgeKeys = edgeKeys;
+        this.edgeValues = edgeValues;
+        this.edgeExactNames = edgeExactNames;
+        this.mask = edgeKeys.length - 1;
+    }
+
+    /**
+     * 将一个语法树编译成为语法自动机，被多个父语法对象共享的子语法对象只会被编译一次。
+     * <p>
+     * Compile a syntax tree into a syntax automaton. Sub syntax objects shared by multiple parent syntax objects will only be compiled once.
+     *
+     * @param root 需要被编译的语法树的根，一般来说是一个回调器对象。
+     *             <p>
+     *             The root of the syntax tree that needs to be compiled, usually a callback object.
+     * @return 编译出来的语法自动机。
+     * <p>
+     * The compiled syntax automaton.
+     */
+    public static SyntaxAutomaton compile(Syntax root) {
+        final IdentityHashMap<Syntax, Integer> stateIds = new IdentityHashMap<>();
+        final ArrayList<Syntax> nodes = new ArrayList<>();
+        final HashMap<String, Integer> tokenIds = new HashMap<>();
+        final ArrayList<ActuatorParam> actuators = new ArrayList<>();
+        // 边的起点 token 与终点
+        final ArrayList<long[]> edges = new ArrayList<>();
+        // 不忽略大小写的边需要完全相同的参数名称才能匹配
+        final ArrayList<String> exactNames = new ArrayList<>();
+
+        stateOf(root, stateIds, nodes);
+        final ArrayList<Integer> defaultEdge = new ArrayList<>();
+        final ArrayList<SaveParam> captureParam = new ArrayList<>();
+        final ArrayList<CaptureType> captureType = new ArrayList<>();
+        final ArrayList<Integer> actuatorIndex = new ArrayList<>();
+        // nodes 会在遍历的过程中不断增长，因此这里的遍历是一个广度优先的遍历
+        final ArrayList<Object> bindings = new ArrayList<>();
+        for (int state = 0; state < nodes.size(); state++) {
+            final Syntax raw = nodes.get(state);
+            // 绑定语法对象使用模板的转移规则 但在进入此状态的时候需要设置绑定对象
+            final GrammarParam node = (GrammarParam) (raw instanceof BoundSyntax ? ((BoundSyntax) raw).getTemplate() : raw);
+            bindings.add(raw instanceof BoundSyntax ? ((BoundSyntax) raw).getBinding() : null);
+            for (Map.Entry<String, Syntax> entry : node.getSubSyntax().entrySet()) {
+                if (Syntax.WILDCARD.equals(entry.getKey())) {
+                    // 通配符参数通过默认边转移，这样在转移的时候才能够保存变量
+                    continue;
+                }
+                final Syntax child = entry.getValue();
+                final Integer tokenId = tokenIds.computeIfAbsent(entry.getKey().toLowerCase(Locale.ROOT), k -> tokenIds.size());
+                edges.add(new long[]{state, tokenId, stateOf(child, stateIds, nodes)});
+                exactNames.add(child instanceof GrammarParam && !((GrammarParam) child).isIgnoreCase() ? entry.getKey() : null);
+            }
+            final Syntax def = node.getDefault(Syntax.WILDCARD);
+            defaultEdge.add(stateOf(def, stateIds, nodes));
+            if (node instanceof SaveParam && def != null && Syntax.WILDCARD.equals(def.getSyntaxName())) {
+                captureParam.add((SaveParam) node);
+                captureType.add(((SaveParam) node).getCaptureType());
+            } else {
+                captureParam.add(null);
+                captureType.add(null);
+            }
+            if (node instanceof ActuatorParam) {
+                actuatorIndex.add(actuators.size());
+                actuators.add((ActuatorParam) node);
+            } else {
+                actuatorIndex.add(-1);
+            }
+        }
+
+        // 构建开放寻址的状态转移表 负载因子不超过 0.5
+        int capacity = 16;
+        while (capacity < edges.size() * 2) {
+            capacity <<= 1;
+        }
+        final long[] edgeKeys = new long[capacity];
+        final int[] edgeValues = new int[capacity];
+        final String[] edgeExactNames = new String[capacity];
+        Arrays.fill(edgeKeys, EMPTY);
+        final int mask = capacity - 1;
+        for (int e = 0; e < edges.size(); e++) {
+            final long[] edge = edges.get(e);
+            final long key = key((int) edge[0], (int) edge[1]);
+            int i = slot(key, mask);
+            while (edgeKeys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            edgeKeys[i] = key;
+            edgeValues[i] = (int) edge[2];
+            edgeExactNames[i] = exactNames.get(e);
+        }
+        final CaseFoldMap<Integer> tokenIdMap = new CaseFoldMap<>(tokenIds.size());
+        tokenIds.forEach((k, v) -> tokenIdMap.put(k, true, v));
+        return new SyntaxAutomaton(
+                nodes.toArray(new Syntax[0]), toArray(defaultEdge), captureParam.toArray(new SaveParam[0]), captureType.toArray(new CaptureType[0]),
+                toArray(actuatorIndex), actuators.toArray(new ActuatorParam[0]), bindings.toArray(), tokenIdMap, edgeKeys, edgeValues, edgeExactNames
+        );
+    }
+
+    private static int stateOf(Syntax syntax, IdentityHashMap<Syntax, Integer> stateIds, ArrayList<Syntax> nodes) {
+        if (syntax == null || syntax instanceof NotFindParam) {
+            return MISS;
+        }
+        if (!(syntax instanceof GrammarParam) && !(syntax instanceof BoundSyntax && ((BoundSyntax) syntax).getTemplate() instanceof GrammarParam)) {
+            throw new UnsupportedOperationException("Only GrammarParam based syntax objects can be compiled, but got: " + syntax.getClass().getName());
+        }
+        final Integer id = stateIds.get(syntax);
+        if (id != null) {
+            return id;
+        }
+        stateIds.put(syntax, nodes.size());
+        nodes.add(syntax);
+        return nodes.size() - 1;
+    }
+
+    private static int[] toArray(ArrayList<Integer> list) {
+        final int[] res = new int[list.size()];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = list.get(i);
+        }
+        return res;
+    }
+
+    private static long key(int state, int tokenId) {
+        return ((long) state << 32) | (tokenId & 0xFFFFFFFFL);
+    }
+
+    private static int slot(long key, int mask) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * @param token 命令中的一个参数。
+     *              <p>
+     *              A parameter in the command.
+     * @return 参数对应的 token 编号，查找过程中忽略大小写且不会创建新的字符串，如果参数不是语法树中的任何一个参数名称则返回 NONE。
+     * <p>
+     * The token id corresponding to the parameter. The search ignores case and does not create new strings. Returns NONE if the parameter is not any parameter name in the syntax tree.
+     */
+    public int tokenId(CharSequence token) {
+        final Integer id = this.tokenIds.get(token);
+        return id == null ? NONE : id;
+    }
+
+    /**
+     * @param state 当前所处的状态编号。
+     *              <p>
+     *              The current state id.
+     * @param token 命令中的一个参数。
+     *              <p>
+     *              A parameter in the command.
+     * @return 通过参数名称能够直接转移到的状态编号，不存在这样的边时返回 NONE。
+     * <p>
+     * The state id that can be transferred to directly through the parameter name, or NONE if there is no such edge.
+     */
+    public int transition(int state, CharSequence token) {
+        final int tokenId = this.tokenId(token);
+        if (tokenId < 0) {
+            return NONE;
+        }
+        final long key = key(state, tokenId);
+        int i = slot(key, this.mask);
+        while (true) {
+            final long k = this.edgeKeys[i];
+            if (k == key) {
+                final String exactName = this.edgeExactNames[i];
+                return exactName == null || CaseFoldMap.equals(exactName, token) ? this.edgeValues[i] : NONE;
+            }
+            if (k == EMPTY) {
+                return NONE;
+            }
+            i = (i + 1) & this.mask;
+        }
+    }
+
+    /**
+     * @param state 当前所处的状态编号。
+     *              <p>
+     *              The current state id.
+     * @return 当前状态通过通配符转移到的状态编号，没有通配符参数时返回 MISS。
+     * <p>
+     * The state id that the current state transfers to through the wildcard, or MISS if there is no wildcard parameter.
+     */
+    public int defaultEdge(int state) {
+        return this.defaultEdge[state];
+    }
+
+    /**
+     * @param state 当前所处的状态编号。
+     *              <p>
+     *              The current state id.
+     * @return 当前状态通过通配符转移时需要保存变量的槽位编号，不需要保存时返回 -1。
+     * <p>
+     * The slot id of the variable that needs to be saved when the current state transfers through the wildcard, or -1 if it does not need to be saved.
+     */
+    public int captureSlot(int state) {
+        final SaveParam param = this.captureParam[state];
+        return param == null ? -1 : param.getSlot();
+    }
+
+    /**
+     * @param slot 变量槽位编号。
+     *             <p>
+     *             The slot id of the variable.
+     * @return 槽位对应的变量名称。
+     * <p>
+     * The variable name corresponding to the slot.
+     */
+    public String slotName(int slot) {
+        return VariableSlots.nameOf(slot);
+    }
+
+    /**
+     * @param state 当前所处的状态编号。
+     *              <p>
+     *              The current state id.
+     * @return 当前状态对应的执行器编号，当前状态不是执行器时返回 -1。
+     * <p>
+     * The executor index corresponding to the current state, or -1 if the current state is not an executor.
+     */
+    public int actuatorIndex(int state) {
+        return this.actuatorIndex[state];
+    }
+
+    /**
+     * @param index 执行器编号。
+     *              <p>
+     *              The executor index.
+     * @return 执行器编号对应的执行器对象。
+     * <p>
+     * The executor object corresponding to the executor index.
+     */
+    public ActuatorParam actuator(int index) {
+        return this.actuators[index];
+    }
+
+    /**
+     * @param state 状态编号。
+     *              <p>
+     *              The state id.
+     * @return 状态编号对应的语法对象。
+     * <p>
+     * The syntax object corresponding to the state id.
+     */
+    public Syntax node(int state) {
+        return this.nodes[state];
+    }
+
+    /**
+     * @return 自动机中状态的数量。
+     * <p>
+     * The number of states in the automaton.
+     */
+    public int stateCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * 使用指定的变量上下文在自动机中匹配并运行一个命令。
+     * <p>
+     * Match and run a command in the automaton with the specified variable context.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param grammar 已经被拆分好的命令参数。
+     *                <p>
+     *                The command parameters that have been split.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    public Object run(VariableContext context, String... grammar) {
+        int state = ROOT;
+        for (int i = 0; i < grammar.length; i++) {
+            final String token = grammar[i];
+            int next = this.transition(state, token);
+            if (next == NONE) {
+                next = this.defaultEdge[state];
+                final SaveParam param = this.captureParam[state];
+                if (param != null) {
+                    context.save(param, this.captureType[state].capture(token));
+                }
+            }
+            if (next == MISS) {
+                return NotFindResult.create(this.nodes[state], i, token);
+            }
+            state = next;
+            if (this.bindings[state] != null) {
+                context.bind(this.bindings[state]);
+            }
+        }
+        final int index = this.actuatorIndex[state];
+        if (index != -1) {
+            return this.actuators[index].run(context);
+        }
+        // 如果到了最后都没有找到执行器，就代表没找到
+        return NotFindResult.createIncomplete(this.nodes[state], grammar.length, grammar.length == 0 ? null : grammar[grammar.length - 1]);
+    }
+
+    /**
+     * 使用指定的变量上下文在自动机中匹配并运行一个已经被区间解析器拆分好的命令，只有需要被保存的参数才会被转换成为字符串。
+     * <p>
+     * Match and run a command that has been split by the span parser in the automaton with the specified variable context. Only the parameters that need to be saved will be converted to strings.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param spans   命令中每个参数对应的区间。
+     *                <p>
+     *                The span corresponding to each parameter in the command.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    public Object run(VariableContext context, TokenSpans spans) {
+        int state = ROOT;
+        final int lastIndex = spans.size() - 1;
+        for (int i = 0; i <= lastIndex; i++) {
+            int next = this.transition(state, spans.token(i));
+            if (next == NONE) {
+                next = this.defaultEdge[state];
+                final SaveParam param = this.captureParam[state];
+                if (param != null) {
+                    context.save(param, this.captureType[state].capture(spans.toString(i)));
+                }
+            }
+            if (next == MISS) {
+                return NotFindResult.create(this.nodes[state], i, spans.toString(i));
+            }
+            state = next;
+            if (this.bindings[state] != null) {
+                context.bind(this.bindings[state]);
+            }
+        }
+        final int index = this.actuatorIndex[state];
+        if (index != -1) {
+            return this.actuators[index].run(context);
+        }
+        return NotFindResult.createIncomplete(this.nodes[state], spans.size(), lastIndex < 0 ? null : spans.toString(lastIndex));
+    }
+}
@@ -1,7 +1,13 @@
 package zhao.gravel.grammar.core;
 
+import zhao.gravel.grammar.command.VariableContext;
 import zhao.gravel.grammar.core.model.AnalyticalModel;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * 语法回调器接口，其中包含针对一些命令语法对象的存储与回调处理的函数。
  * <p>
@@ -46,4 +52,158 @@ public interface SyntaxCallback {
      * Run result object executed according to syntax.
      */
     Object run(String... grammar);
+
+    /**
+     * 使用指定的变量上下文运行一个命令，解析过程中保存的所有变量都会被存储到此上下文中，因此不同的线程使用不同的上下文就可以同时运行命令。
+     * <p>
+     * Run a command with the specified variable context. All variables saved during parsing will be stored in this context, so different threads can run commands at the same time by using different contexts.
+     * <p>
+     * PS：默认实现会忽略上下文并直接调用 run(String...)，这样旧的回调器实现仍然可以被使用。
+     * <p>
+     * The default implementation ignores the context and directly calls run(String...), so old callback implementations can still be used.
+     *
+     * @param context 本次命令执行对应的变量上下文。
+     *                <p>
+     *                The variable context corresponding to this command execution.
+     * @param grammar 需要被解析的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is an array of strings, and the callback class will not automatically get based on the parsing mode.
+     * @return 根据语法执行的运行结果对象。
+     * <p>
+     * Run result object executed according to syntax.
+     */
+    default Object run(VariableContext context, String... grammar) {
+        return this.run(grammar);
+    }
+
+    /**
+     * 使用默认的执行器异步的运行一个命令，如果执行器返回的结果是一个 CompletionStage，则返回的 CompletableFuture 会在它完成之后才完成。
+     * <p>
+     * Run a command asynchronously with the default executor. If the result returned by the executor is a CompletionStage, the returned CompletableFuture will complete only after it completes.
+     *
+     * @param grammar 需要被解析的命令，在这里是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                <p>
+     *                The command that needs to be parsed here is a string as a whole, and the callback class will automatically get it based on the parsing mode.
+     * @return 代表运行结果的 CompletableFuture。
+     * <p>
+     * A CompletableFuture representing the running result.
+     * @see CommandExecutors#defaultExecutor()
+     */
+    default CompletableFuture<Object> runAsync(String grammar) {
+        return this.runAsync(grammar, CommandExecutors.defaultExecutor());
+    }
+
+    /**
+     * 使用指定的执行器异步的运行一个命令，如果执行器返回的结果是一个 CompletionStage，则返回的 CompletableFuture 会在它完成之后才完成。
+     * <p>
+     * Run a command asynchronously with the specified executor. If the result returned by the executor is a CompletionStage, the returned CompletableFuture will complete only after it completes.
+     * <p>
+     * PS：只重写了 run() 的执行器会在一个全局锁上运行，多个异步命令同时到达这类执行器的时候会排队。
+     *
+     * @param grammar  需要被解析的命令，在这里是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                 <p>
+     *                 The command that needs to be parsed here is a string as a whole, and the callback class will automatically get it based on the parsing mode.
+     * @param executor 用于运行命令的执行器。
+     *                 <p>
+     *                 The executor used to run the command.
+     * @return 代表运行结果的 CompletableFuture。
+     * <p>
+     * A CompletableFuture representing the running result.
+     */
+    default CompletableFuture<Object> runAsync(String grammar, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.run(grammar), executor).thenCompose(CommandExecutors::flatten);
+    }
+
+    /**
+     * 使用指定的执行器异步的运行一个已经拆分好的命令，如果执行器返回的结果是一个 CompletionStage，则返回的 CompletableFuture 会在它完成之后才完成。
+     * <p>
+     * Run a split command asynchronously with the specified executor. If the result returned by the executor is a CompletionStage, the returned CompletableFuture will complete only after it completes.
+     *
+     * @param executor 用于运行命令的执行器。
+     *                 <p>
+     *                 The executor used to run the command.
+     * @param grammar  需要被解析的命令，在这里是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                 <p>
+     *                 The command that needs to be parsed here is an array of strings, and the callback class will not automatically get based on the parsing mode.
+     * @return 代表运行结果的 CompletableFuture。
+     * <p>
+     * A CompletableFuture representing the running result.
+     */
+    default CompletableFuture<Object> runAsync(Executor executor, String... grammar) {
+        return CompletableFuture.supplyAsync(() -> this.run(new VariableContext(), grammar), executor).thenCompose(CommandExecutors::flatten);
+    }
+
+    /**
+     * 使用公共的 ForkJoinPool 并行运行一批互不相关的命令，每个命令都会使用属于自己的变量上下文。
+     * <p>
+     * Run a batch of independent commands in parallel with the common ForkJoinPool, and each command uses its own variable context.
+     * <p>
+     * PS：只有重写了 run(VariableContext) 的执行器才会被并行运行，只重写了 run() 的执行器会在一个全局锁上逐个运行，以免它们从共享的容器中读取到其它命令的变量。
+     * <p>
+     * PS: Only executors that override run(VariableContext) run in parallel. Executors that only override run() run one at a time on a global lock, so that they do not read the variables of other commands from the shared containers.
+     *
+     * @param commands 需要被运行的命令，每个命令都是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                 <p>
+     *                 The commands that need to be run. Each command is a string as a whole, and the callback class will automatically split it based on the parsing mode.
+     * @return 与命令顺序一致的运行结果。
+     * <p>
+     * The running results in the same order as the commands.
+     */
+    default List<Object> runAll(List<String> commands) {
+        return CommandBatch.run(this, commands, null, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 使用指定的并行度并行运行一批互不相关的命令，每个命令都会使用属于自己的变量上下文。
+     * <p>
+     * Run a batch of independent commands in parallel with the specified parallelism, and each command uses its own variable context.
+     *
+     * @param commands    需要被运行的命令，每个命令都是一个字符串整体，回调类会自动的根据解析模式进行拆分。
+     *                    <p>
+     *                    The commands that need to be run. Each command is a string as a whole, and the callback class will automatically split it based on the parsing mode.
+     * @param parallelism 并行度，也就是同时运行命令的线程数量。
+     *                    <p>
+     *                    The parallelism, that is, the number of threads running commands at the same time.
+     * @return 与命令顺序一致的运行结果。
+     * <p>
+     * The running results in the same order as the commands.
+     */
+    default List<Object> runAll(List<String> commands, int parallelism) {
+        return CommandBatch.run(this, commands, null, parallelism);
+    }
+
+    /**
+     * 使用公共的 ForkJoinPool 并行运行一批互不相关的已经拆分好的命令，每个命令都会使用属于自己的变量上下文。
+     * <p>
+     * Run a batch of independent split commands in parallel with the common ForkJoinPool, and each command uses its own variable context.
+     *
+     * @param commands 需要被运行的命令，每个命令都是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                 <p>
+     *                 The commands that need to be run. Each command is an array of strings, and the callback class will not automatically split it based on the parsing mode.
+     * @return 与命令顺序一致的运行结果。
+     * <p>
+     * The running results in the same order as the commands.
+     */
+    default List<Object> runAll(String[][] commands) {
+        return CommandBatch.run(this, null, commands, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 使用指定的并行度并行运行一批互不相关的已经拆分好的命令，每个命令都会使用属于自己的变量上下文。
+     * <p>
+     * Run a batch of independent split commands in parallel with the specified parallelism, and each command uses its own variable context.
+     *
+     * @param commands    需要被运行的命令，每个命令都是一个字符串数组，回调类不会自动的根据解析模式进行拆分。
+     *                    <p>
+     *                    The commands that need to be run. Each command is an array of strings, and the callback class will not automatically split it based on the parsing mode.
+     * @param parallelism 并行度，也就是同时运行命令的线程数量。
+     *                    <p>
+     *                    The parallelism, that is, the number of threads running commands at the same time.
+     * @return 与命令顺序一致的运行结果。
+     * <p>
+     * The running results in the same order as the commands.
+     */
+    default List<Object> runAll(String[][] commands, int parallelism) {
+        return CommandBatch.run(this, null, commands, parallelism);
+    }
 }
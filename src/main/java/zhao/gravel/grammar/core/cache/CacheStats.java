@@ -0,0 +1,80 @@
+package zhao.gravel.grammar.core.cache;
+
+/**
+ * 缓存的统计信息快照，其中包含命中次数、未命中次数以及淘汰次数。
+ * <p>
+ * A snapshot of cache statistics, which contains the number of hits, misses and evictions.
+ *
+ * @author zhao
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    CacheStats(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    /**
+     * @return 缓存命中的次数。
+     * <p>
+     * The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return 缓存未命中的次数。
+     * <p>
+     * The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return 由于容量限制被淘汰的元素数量。
+     * <p>
+     * The number of elements evicted due to capacity limits.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return 生成快照时缓存中元素的数量。
+     * <p>
+     * The number of elements in the cache when the snapshot was generated.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * @return 缓存的命中率，没有任何请求时为 0。
+     * <p>
+     * The hit rate of the cache, 0 when there are no requests.
+     */
+    public double getHitRate() {
+        final long total = this.hits + this.misses;
+        return total == 0 ? 0 : (double) this.hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + this.hits +
+                ", misses=" + this.misses +
+                ", evictions=" + this.evictions +
+                ", size=" + this.size +
+                ", hitRate=" + String.format("%.4f", this.getHitRate()) +
+                '}';
+    }
+}
@@ -0,0 +1,373 @@
+package zhao.gravel.grammar.core.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * 线程安全的有界缓存，当元素数量超过最大容量的时候会淘汰最近没有被访问的元素，同时会统计命中与未命中的次数。
+ * <p>
+ * A thread-safe bounded cache. When the number of elements exceeds the maximum capacity, elements that have not been accessed recently are evicted. The number of hits and misses is also counted.
+ * <p>
+ * 元素存储在 ConcurrentHashMap 中，读取操作不会加锁，只会为元素设置一个访问标记，淘汰时使用 CLOCK 算法近似 LRU：按照添加的顺序检查元素，带有访问标记的元素会清除标记并获得第二次机会，只有超过容量的写入操作才需要持有淘汰锁。
+ * <p>
+ * Elements are stored in a ConcurrentHashMap. Reads take no lock and only set an access mark on the element. Eviction approximates LRU with the CLOCK algorithm: elements are checked in insertion order, and marked elements have their mark cleared and get a second chance. Only writes that exceed the capacity need to hold the eviction lock.
+ * <p>
+ * 如果提供了权重函数，则缓存中所有元素的总权重也不会超过最大权重，例如可以使用字符数量来限制缓存占用的内存。
+ * <p>
+ * If a weigher is provided, the total weight of all elements in the cache will not exceed the maximum weight either, for example the number of characters can be used to limit the memory used by the cache.
+ *
+ * @param <K> 缓存的 key 的类型。
+ * @param <V> 缓存的元素的类型。
+ * @author zhao
+ */
+public class LruCache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    /**
+     * CLOCK 算法的环，其中按照添加的顺序存储所有的元素节点，已经被移除的节点会在淘汰或清理的时候被跳过
+     */
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    /**
+     * 环中已经被移除但是还没有被清理的节点数量
+     */
+    private final AtomicInteger garbage = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final long maximumWeight;
+    private volatile int maximumSize;
+
+    /**
+     * @param maximumSize 缓存中最多能够存储的元素数量。
+     *                    <p>
+     *                    The maximum number of elements that can be stored in the cache.
+     */
+    public LruCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maximumSize   缓存中最多能够存储的元素数量。
+     *                      <p>
+     *                      The maximum number of elements that can be stored in the cache.
+     * @param maximumWeight 缓存中所有元素的最大总权重。
+     *                      <p>
+     *                      The maximum total weight of all elements in the cache.
+     * @param weigher       用于计算每个元素权重的函数，其输入为元素的 key 与元素本身，为 null 时代表不限制权重。
+     *                      <p>
+     *                      The function used to calculate the weight of each element, whose input is the key of the element and the element itself. Null means the weight is not limited.
+     */
+    public LruCache(int maximumSize, long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be greater than 0, but got: " + maximumSize);
+        }
+        if (maximumWeight <= 0) {
+            throw new IllegalArgumentException("The maximum weight of the cache must be greater than 0, but got: " + maximumWeight);
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = weigher == null ? Long.MAX_VALUE : maximumWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * @param key 需要获取的元素对应的 key。
+     *            <p>
+     *            The key corresponding to the element that needs to be obtained.
+     * @return key 对应的元素，没有找到时返回 null。
+     * <p>
+     * The element corresponding to the key, or null if it is not found.
+     */
+    public V get(K key) {
+        final Node<K, V> node = this.map.get(key);
+        if (node == null) {
+            this.misses.increment();
+            return null;
+        }
+        // 已经被标记过的元素不需要再次写入 避免多个线程反复写入同一个缓存行
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        this.hits.increment();
+        return node.value;
+    }
+
+    /**
+     * 获取到 key 对应的元素，如果元素不存在则使用构造函数创建元素并将其添加到缓存中，构造函数不会持有任何锁，并发创建时只会保留第一个被添加的元素。
+     * <p>
+     * Obtain the element corresponding to the key. If the element does not exist, the creator is used to create it and add it to the cache. The creator holds no lock, and only the first added element is kept during concurrent creation.
+     *
+     * @param key     需要获取的元素对应的 key。
+     *                <p>
+     *                The key corresponding to the element that needs to be obtained.
+     * @param creator 元素不存在时用于创建元素的函数。
+     *                <p>
+     *                The function used to create the element when it does not exist.
+     * @return key 对应的元素。
+     * <p>
+     * The element corresponding to the key.
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> creator) {
+        final V value = this.get(key);
+        if (value != null) {
+            return value;
+        }
+        final V created = creator.apply(key);
+        final Node<K, V> node = new Node<>(key, created, this.weigh(key, created));
+        final Node<K, V> old = this.map.putIfAbsent(key, node);
+        if (old != null) {
+            return old.value;
+        }
+        this.added(node);
+        return created;
+    }
+
+    /**
+     * 将一个元素添加到缓存中。
+     * <p>
+     * Add an element to the cache.
+     *
+     * @param key   元素对应的 key。
+     *              <p>
+     *              The key corresponding to the element.
+     * @param value 需要被添加的元素。
+     *              <p>
+     *              The element that needs to be added.
+     */
+    public void put(K key, V value) {
+        final Node<K, V> node = new Node<>(key, value, this.weigh(key, value));
+        final Node<K, V> old = this.map.put(key, node);
+        if (old != null) {
+            this.discard(old);
+        }
+        this.added(node);
+    }
+
+    /**
+     * @param key 需要被移除的元素对应的 key。
+     *            <p>
+     *            The key corresponding to the element that needs to be removed.
+     * @return 被移除的元素，没有找到时返回 null。
+     * <p>
+     * The removed element, or null if it is not found.
+     */
+    public V remove(K key) {
+        final Node<K, V> node = this.map.remove(key);
+        if (node == null) {
+            return null;
+        }
+        this.discard(node);
+        this.sweep();
+        return node.value;
+    }
+
+    /**
+     * 移除所有满足条件的元素。
+     * <p>
+     * Remove all elements that satisfy the condition.
+     *
+     * @param filter 判断元素是否需要被移除的函数，其输入为元素的 key 与元素本身。
+     *               <p>
+     *               The function that determines whether an element needs to be removed, whose input is the key of the element and the element itself.
+     * @return 被移除的元素数量。
+     * <p>
+     * The number of removed elements.
+     */
+    public int removeIf(BiPredicate<? super K, ? super V> filter) {
+        int count = 0;
+        for (Map.Entry<K, Node<K, V>> entry : this.map.entrySet()) {
+            final Node<K, V> node = entry.getValue();
+            if (filter.test(entry.getKey(), node.value) && this.map.remove(entry.getKey(), node)) {
+                this.discard(node);
+                count++;
+            }
+        }
+        this.sweep();
+        return count;
+    }
+
+    /**
+     * 清空缓存中的所有元素，统计信息不会被清空。
+     * <p>
+     * Clear all elements in the cache, the statistics will not be cleared.
+     */
+    public void clear() {
+        for (Map.Entry<K, Node<K, V>> entry : this.map.entrySet()) {
+            final Node<K, V> node = entry.getValue();
+            if (this.map.remove(entry.getKey(), node)) {
+                this.discard(node);
+            }
+        }
+        this.sweep();
+    }
+
+    /**
+     * @return 缓存中元素的数量。
+     * <p>
+     * The number of elements in the cache.
+     */
+    public int size() {
+        return this.map.size();
+    }
+
+    /**
+     * @return 缓存中最多能够存储的元素数量。
+     * <p>
+     * The maximum number of elements that can be stored in the cache.
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * 设置缓存中最多能够存储的元素数量，如果当前的元素数量超过了新的容量，最近没有被访问的元素会被立即淘汰。
+     * <p>
+     * Set the maximum number of elements that can be stored in the cache. If the current number of elements exceeds the new capacity, elements that have not been accessed recently will be evicted immediately.
+     *
+     * @param maximumSize 缓存中最多能够存储的元素数量。
+     *                    <p>
+     *                    The maximum number of elements that can be stored in the cache.
+     */
+    public void setMaximumSize(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be greater than 0, but got: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.evict();
+    }
+
+    /**
+     * @return 缓存中所有元素的总权重，没有权重函数时为 0。
+     * <p>
+     * The total weight of all elements in the cache, 0 if there is no weigher.
+     */
+    public long getWeight() {
+        return this.weight.get();
+    }
+
+    /**
+     * @return 缓存中所有元素的最大总权重。
+     * <p>
+     * The maximum total weight of all elements in the cache.
+     */
+    public long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * 记录一个已经被放入到 map 中的节点，并淘汰超出容量的元素。
+     */
+    private void added(Node<K, V> node) {
+        this.clock.offer(node);
+        if (node.weight != 0) {
+            this.weight.addAndGet(node.weight);
+        }
+        if (this.map.size() > this.maximumSize || this.weight.get() > this.maximumWeight) {
+            this.evict();
+        }
+    }
+
+    /**
+     * 将一个已经从 map 中移除的节点标记为无效，其在环中的位置会在之后被清理。
+     */
+    private void discard(Node<K, V> node) {
+        node.removed = true;
+        if (node.weight != 0) {
+            this.weight.addAndGet(-node.weight);
+        }
+        this.garbage.incrementAndGet();
+    }
+
+    /**
+     * 使用 CLOCK 算法淘汰元素，直到元素数量与总权重都不超过限制，带有访问标记的元素会清除标记并被放回到环的末尾，每个元素在一次淘汰中最多只有一次第二次机会。
+     */
+    private void evict() {
+        synchronized (this.clock) {
+            int chances = this.map.size();
+            while (this.map.size() > this.maximumSize || this.weight.get() > this.maximumWeight) {
+                final Node<K, V> node = this.clock.poll();
+                if (node == null) {
+                    // 并发的 clear 可能会清理掉刚刚被添加的节点 此时根据 map 重建环
+                    if (this.map.isEmpty()) {
+                        return;
+                    }
+                    this.clock.addAll(this.map.values());
+                    continue;
+                }
+                if (node.removed) {
+                    this.garbage.decrementAndGet();
+                    continue;
+                }
+                if (node.referenced && chances-- > 0) {
+                    node.referenced = false;
+                    this.clock.offer(node);
+                    continue;
+                }
+                if (this.map.remove(node.key, node)) {
+                    node.removed = true;
+                    if (node.weight != 0) {
+                        this.weight.addAndGet(-node.weight);
+                    }
+                    this.evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * 环中无效的节点过多的时候，将它们从环中清理掉，避免只有移除没有淘汰的时候环无限增长。
+     */
+    private void sweep() {
+        if (this.garbage.get() > this.map.size() + 16) {
+            synchronized (this.clock) {
+                this.clock.removeIf(node -> node.removed);
+                this.garbage.set(0);
+            }
+        }
+    }
+
+    private long weigh(K key, V value) {
+        return this.weigher == null ? 0 : this.weigher.applyAsLong(key, value);
+    }
+
+    /**
+     * @return 当前缓存统计信息的快照。
+     * <p>
+     * A snapshot of the current cache statistics.
+     */
+    public CacheStats getStats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), this.size());
+    }
+
+    /**
+     * 缓存中的元素节点，节点是不可变的，覆盖元素时会创建新的节点。
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long weight;
+        /**
+         * 最近是否被访问过，CLOCK 算法会根据此标记给予第二次机会
+         */
+        private volatile boolean referenced;
+        /**
+         * 是否已经从 map 中被移除
+         */
+        private volatile boolean removed;
+
+        private Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
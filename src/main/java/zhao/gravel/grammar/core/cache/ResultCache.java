@@ -0,0 +1,150 @@
+package zhao.gravel.grammar.core.cache;
+
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.VariableContext;
+import zhao.gravel.grammar.command.VariableView;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 执行器结果缓存，其会将可缓存的执行器的运行结果按照 (执行器, 绑定对象, 解析过程中保存的所有变量) 进行缓存，相同的命令再次出现的时候会直接返回缓存的结果，不会再运行执行器。
+ * <p>
+ * Executor result cache, which caches the running results of cacheable executors by (executor, binding object, all variables saved during parsing). When the same command appears again, the cached result is returned directly and the executor is not run again.
+ * <p>
+ * PS：执行器只能通过变量上下文观察到命令，因此匹配到的路径不需要做为 key 的一部分，只有没有副作用的执行器才应该被标记为可缓存的。
+ *
+ * @author zhao
+ * @see ActuatorParam#setCacheable(boolean)
+ */
+public final class ResultCache {
+
+    private final LruCache<Key, Entry> cache;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maximumSize 缓存中最多能够存储的结果数量。
+     *                    <p>
+     *                    The maximum number of results that can be stored in the cache.
+     * @param ttl         结果的存活时间，小于等于 0 代表结果不会过期。
+     *                    <p>
+     *                    The time to live of results, less than or equal to 0 means results never expire.
+     * @param unit        存活时间的单位。
+     *                    <p>
+     *                    The unit of the time to live.
+     */
+    public ResultCache(int maximumSize, long ttl, TimeUnit unit) {
+        this.cache = new LruCache<>(maximumSize);
+        this.ttlNanos = ttl <= 0 ? 0 : unit.toNanos(ttl);
+    }
+
+    /**
+     * 获取到执行器在当前上下文中的运行结果，如果缓存中没有结果或结果已经过期，则运行执行器并缓存其结果。
+     * <p>
+     * Obtain the running result of the executor in the current context. If there is no result in the cache or the result has expired, run the executor and cache its result.
+     *
+     * @param actuator 需要运行的执行器。
+     *                 <p>
+     *                 The executor that needs to be run.
+     * @param context  本次命令执行对应的变量上下文。
+     *                 <p>
+     *                 The variable context corresponding to this command execution.
+     * @param runner   缓存中没有结果时用于运行执行器的函数。
+     *                 <p>
+     *                 The function used to run the executor when there is no result in the cache.
+     * @return 执行器的运行结果。
+     * <p>
+     * The running result of the executor.
+     */
+    public Object get(ActuatorParam actuator, VariableContext context, Supplier<Object> runner) {
+        final Key key = new Key(actuator, context.getBinding(), context.snapshot());
+        final Entry entry = this.cache.get(key);
+        if (entry != null && (this.ttlNanos == 0 || System.nanoTime() - entry.expiresAt < 0)) {
+            this.hits.increment();
+            return entry.value;
+        }
+        this.misses.increment();
+        final Object value = runner.get();
+        this.cache.put(key, new Entry(value, this.ttlNanos == 0 ? 0 : System.nanoTime() + this.ttlNanos));
+        return value;
+    }
+
+    /**
+     * 使指定执行器的所有缓存结果失效。
+     * <p>
+     * Invalidate all cached results of the specified executor.
+     *
+     * @param actuator 需要使缓存结果失效的执行器。
+     *                 <p>
+     *                 The executor whose cached results need to be invalidated.
+     * @return 被移除的结果数量。
+     * <p>
+     * The number of removed results.
+     */
+    public int invalidate(ActuatorParam actuator) {
+        return this.cache.removeIf((key, value) -> key.actuator == actuator);
+    }
+
+    /**
+     * 使所有的缓存结果失效。
+     * <p>
+     * Invalidate all cached results.
+     */
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    /**
+     * @return 当前结果缓存的统计信息，过期的结果会被当作未命中。
+     * <p>
+     * The statistics of the current result cache, expired results are counted as misses.
+     */
+    public CacheStats getStats() {
+        final CacheStats stats = this.cache.getStats();
+        return new CacheStats(this.hits.sum(), this.misses.sum(), stats.getEvictions(), stats.getSize());
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Key {
+        private final ActuatorParam actuator;
+        private final Object binding;
+        private final VariableView variables;
+        private final int hash;
+
+        Key(ActuatorParam actuator, Object binding, VariableView variables) {
+            this.actuator = actuator;
+            this.binding = binding;
+            this.variables = variables;
+            this.hash = (System.identityHashCode(actuator) * 31 + System.identityHashCode(binding)) * 31 + variables.contentHashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return this.actuator == key.actuator && this.binding == key.binding && this.variables.contentEquals(key.variables);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
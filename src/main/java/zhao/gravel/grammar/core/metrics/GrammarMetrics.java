@@ -0,0 +1,186 @@
+package zhao.gravel.grammar.core.metrics;
+
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.BoundSyntax;
+import zhao.gravel.grammar.command.GrammarParam;
+import zhao.gravel.grammar.command.Syntax;
+import zhao.gravel.grammar.command.VariableContext;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 语法指标对象，其分别记录了命令在拆分、语法树匹配以及执行器运行三个阶段的耗时，以及每个语法对象被匹配到的次数和每个执行器的耗时，所有的记录操作都是无锁的。
+ * <p>
+ * Grammar metrics object, which separately records the time taken by commands in the three phases of splitting, syntax tree matching and executor running, as well as the number of times each syntax object is matched and the time taken by each executor. All recording operations are lock-free.
+ * <p>
+ * PS：此对象只有在回调器开启了指标之后才会被使用，没有开启指标的回调器不会有任何的额外开销。
+ *
+ * @author zhao
+ */
+public final class GrammarMetrics {
+
+    private final LatencyHistogram parse = new LatencyHistogram();
+    private final LatencyHistogram walk = new LatencyHistogram();
+    private final LatencyHistogram execute = new LatencyHistogram();
+    private final ConcurrentHashMap<Syntax, LongAdder> hits = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ActuatorParam, LatencyHistogram> actuators = new ConcurrentHashMap<>();
+    /**
+     * 用于计算每个语法对象路径的语法树根节点，为 null 代表无法计算路径
+     */
+    private final Syntax root;
+
+    public GrammarMetrics() {
+        this(null);
+    }
+
+    /**
+     * @param root 被记录指标的语法树的根节点，一般是回调器对象，快照中每个语法对象的编号就是从此节点出发到达它的路径。
+     *             <p>
+     *             The root node of the syntax tree whose metrics are recorded, generally a callback object. The id of each syntax object in the snapshot is the path from this node to it.
+     */
+    public GrammarMetrics(Syntax root) {
+        this.root = root;
+    }
+
+    /**
+     * 记录一次命令拆分的耗时。
+     * <p>
+     * Record the time taken by one command splitting.
+     *
+     * @param nanos 以纳秒为单位的耗时。
+     *              <p>
+     *              The time taken in nanoseconds.
+     */
+    public void recordParse(long nanos) {
+        this.parse.record(nanos);
+    }
+
+    /**
+     * 记录一次语法树匹配的耗时，其中不包含执行器运行的耗时。
+     * <p>
+     * Record the time taken by one syntax tree matching, excluding the time taken by the executor.
+     *
+     * @param nanos 以纳秒为单位的耗时。
+     *              <p>
+     *              The time taken in nanoseconds.
+     */
+    public void recordWalk(long nanos) {
+        this.walk.record(nanos);
+    }
+
+    /**
+     * 记录一次语法对象被匹配到。
+     * <p>
+     * Record that a syntax object was matched once.
+     *
+     * @param node 被匹配到的语法对象。
+     *             <p>
+     *             The matched syntax object.
+     */
+    public void hit(Syntax node) {
+        LongAdder adder = this.hits.get(node);
+        if (adder == null) {
+            adder = this.hits.computeIfAbsent(node, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 运行一个执行器，并记录其耗时。
+     * <p>
+     * Run an executor and record the time it takes.
+     *
+     * @param actuator 需要运行的执行器。
+     *                 <p>
+     *                 The executor that needs to be run.
+     * @param context  本次命令执行对应的变量上下文。
+     *                 <p>
+     *                 The variable context corresponding to this command execution.
+     * @return 执行器的运行结果。
+     * <p>
+     * The running result of the executor.
+     */
+    public Object execute(ActuatorParam actuator, VariableContext context) {
+        final long start = System.nanoTime();
+        try {
+            return actuator.run(context);
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            this.execute.record(nanos);
+            LatencyHistogram histogram = this.actuators.get(actuator);
+            if (histogram == null) {
+                histogram = this.actuators.computeIfAbsent(actuator, k -> new LatencyHistogram());
+            }
+            histogram.record(nanos);
+        }
+    }
+
+    /**
+     * @return 当前所有指标的快照。
+     * <p>
+     * A snapshot of all current metrics.
+     */
+    public MetricsSnapshot snapshot() {
+        final HashMap<Syntax, Long> hits = new HashMap<>(this.hits.size() << 1);
+        for (Map.Entry<Syntax, LongAdder> entry : this.hits.entrySet()) {
+            hits.put(entry.getKey(), entry.getValue().sum());
+        }
+        final HashMap<ActuatorParam, HistogramSnapshot> actuators = new HashMap<>(this.actuators.size() << 1);
+        for (Map.Entry<ActuatorParam, LatencyHistogram> entry : this.actuators.entrySet()) {
+            actuators.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new MetricsSnapshot(this.parse.snapshot(), this.walk.snapshot(), this.execute.snapshot(), hits, actuators, this.nodeIds(hits, actuators));
+    }
+
+    /**
+     * 为快照中的每个语法对象计算一个稳定的编号，编号是从根节点出发广度优先的第一次到达此对象时经过的参数名称，以 "/" 分隔，同一个父语法对象中子语法对象的名称是唯一的，因此不同的语法对象一定拥有不同的编号。
+     * <p>
+     * 已经不在语法树中的语法对象无法计算路径，其编号会使用 "#" 加上对象的身份哈希值。
+     */
+    private Map<Syntax, String> nodeIds(Map<Syntax, Long> hits, Map<ActuatorParam, HistogramSnapshot> actuators) {
+        final IdentityHashMap<Syntax, String> ids = new IdentityHashMap<>(hits.size() + actuators.size());
+        final int wanted = hits.size() + actuators.size();
+        if (this.root != null) {
+            final IdentityHashMap<Syntax, String> paths = new IdentityHashMap<>();
+            final ArrayDeque<Syntax> queue = new ArrayDeque<>();
+            paths.put(this.root, "");
+            queue.add(this.root);
+            while (!queue.isEmpty() && ids.size() < wanted) {
+                final Syntax now = queue.poll();
+                final String path = paths.get(now);
+                final Syntax node = now instanceof BoundSyntax ? ((BoundSyntax) now).getTemplate() : now;
+                if (!(node instanceof GrammarParam)) {
+                    continue;
+                }
+                for (Map.Entry<String, Syntax> entry : ((GrammarParam) node).getSubSyntax().entrySet()) {
+                    final Syntax child = entry.getValue();
+                    if (paths.containsKey(child)) {
+                        continue;
+                    }
+                    final String childPath = path.isEmpty() ? entry.getKey() : path + '/' + entry.getKey();
+                    paths.put(child, childPath);
+                    queue.add(child);
+                    if (hits.containsKey(child) || child instanceof ActuatorParam && actuators.containsKey(child)) {
+                        ids.put(child, childPath);
+                    }
+                }
+            }
+        }
+        for (Syntax node : hits.keySet()) {
+            ids.computeIfAbsent(node, GrammarMetrics::detachedId);
+        }
+        for (Syntax node : actuators.keySet()) {
+            ids.computeIfAbsent(node, GrammarMetrics::detachedId);
+        }
+        return ids;
+    }
+
+    private static String detachedId(Syntax node) {
+        return '#' + Integer.toHexString(System.identityHashCode(node));
+    }
+}
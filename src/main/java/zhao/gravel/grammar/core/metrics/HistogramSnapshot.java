@@ -0,0 +1,112 @@
+package zhao.gravel.grammar.core.metrics;
+
+/**
+ * 延迟直方图的不可变快照，所有的数值单位与记录时使用的单位一致，一般是纳秒。
+ * <p>
+ * An immutable snapshot of the latency histogram. All values have the same unit as used when recording, generally nanoseconds.
+ *
+ * @author zhao
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    HistogramSnapshot(long[] counts, long count, long sum, long max) {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * 将两个直方图快照合并成为一个快照，合并的结果与将两个直方图的所有数值记录到同一个直方图中的结果一致。
+     *
+     * @param a 需要被合并的快照。
+     * @param b 需要被合并的快照。
+     * @return 合并之后的快照。
+     */
+    static HistogramSnapshot merge(HistogramSnapshot a, HistogramSnapshot b) {
+        final long[] counts = new long[a.counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = a.counts[i] + b.counts[i];
+        }
+        return new HistogramSnapshot(counts, a.count + b.count, a.sum + b.sum, Math.max(a.max, b.max));
+    }
+
+    /**
+     * @return 被记录的数值的数量。
+     * <p>
+     * The number of recorded values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return 被记录的所有数值的总和。
+     * <p>
+     * The sum of all recorded values.
+     */
+    public long getSum() {
+        return this.sum;
+    }
+
+    /**
+     * @return 被记录的最大数值。
+     * <p>
+     * The largest recorded value.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * @return 被记录的数值的平均值，没有任何记录时为 0。
+     * <p>
+     * The average of the recorded values, 0 when there are no records.
+     */
+    public double getMean() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * 获取到指定百分位对应的数值，返回的是数值所在桶能够存储的最大数值，且不会超过被记录的最大数值。
+     * <p>
+     * Obtain the value corresponding to the specified percentile. The returned value is the largest value that can be stored in the bucket where the value is located, and it will not exceed the largest recorded value.
+     *
+     * @param percentile 百分位，取值范围为 [0, 100]。
+     *                   <p>
+     *                   The percentile, the value range is [0, 100].
+     * @return 百分位对应的数值，没有任何记录时为 0。
+     * <p>
+     * The value corresponding to the percentile, 0 when there are no records.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (this.count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * this.count));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.highestValueOf(i), this.max);
+            }
+        }
+        return this.max;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{" +
+                "count=" + this.count +
+                ", mean=" + String.format("%.1f", this.getMean()) +
+                ", p50=" + this.getValueAtPercentile(50) +
+                ", p99=" + this.getValueAtPercentile(99) +
+                ", max=" + this.max +
+                '}';
+    }
+}
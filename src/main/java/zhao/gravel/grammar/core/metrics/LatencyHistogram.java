@@ -0,0 +1,85 @@
+package zhao.gravel.grammar.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的延迟直方图，其使用与 HDR 直方图类似的对数线性分桶方式，每个 2 的幂区间被划分为 32 个子桶，因此记录的数值的相对误差不超过 1/32。
+ * <p>
+ * Lock-free latency histogram, which uses a log-linear bucketing similar to the HDR histogram. Each power-of-2 range is divided into 32 sub-buckets, so the relative error of the recorded values does not exceed 1/32.
+ * <p>
+ * PS：记录操作只包含原子的自增操作，可以被任意多个线程同时调用。
+ *
+ * @author zhao
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value 需要被记录的数值。
+     * @return 数值对应的桶索引。
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * @param index 桶索引。
+     * @return 桶中能够存储的最大数值。
+     */
+    static long highestValueOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long lowest = (long) (SUB_BUCKET_COUNT + (index & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * 记录一个数值，小于 0 的数值会被当作 0 记录。
+     * <p>
+     * Record a value, values less than 0 will be recorded as 0.
+     *
+     * @param value 需要被记录的数值，一般是以纳秒为单位的耗时。
+     *              <p>
+     *              The value that needs to be recorded, generally the time taken in nanoseconds.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts.incrementAndGet(indexOf(value));
+        this.sum.add(value);
+        long max = this.max.get();
+        while (value > max && !this.max.compareAndSet(max, value)) {
+            max = this.max.get();
+        }
+    }
+
+    /**
+     * @return 当前直方图的快照，快照生成之后的记录操作不会影响到快照。
+     * <p>
+     * A snapshot of the current histogram, recording operations after the snapshot is generated will not affect the snapshot.
+     */
+    public HistogramSnapshot snapshot() {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i] = this.counts.get(i);
+        }
+        return new HistogramSnapshot(counts, count, this.sum.sum(), this.max.get());
+    }
+}
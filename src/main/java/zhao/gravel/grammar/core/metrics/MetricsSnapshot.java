@@ -0,0 +1,102 @@
+package zhao.gravel.grammar.core.metrics;
+
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.Syntax;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 语法指标的不可变快照。
+ * <p>
+ * An immutable snapshot of grammar metrics.
+ *
+ * @author zhao
+ */
+public final class MetricsSnapshot {
+
+    private final HistogramSnapshot parse;
+    private final HistogramSnapshot walk;
+    private final HistogramSnapshot execute;
+    private final Map<Syntax, Long> hits;
+    private final Map<ActuatorParam, HistogramSnapshot> actuators;
+    private final Map<Syntax, String> nodeIds;
+
+    MetricsSnapshot(HistogramSnapshot parse, HistogramSnapshot walk, HistogramSnapshot execute, Map<Syntax, Long> hits, Map<ActuatorParam, HistogramSnapshot> actuators, Map<Syntax, String> nodeIds) {
+        this.parse = parse;
+        this.walk = walk;
+        this.execute = execute;
+        this.hits = Collections.unmodifiableMap(hits);
+        this.actuators = Collections.unmodifiableMap(actuators);
+        this.nodeIds = nodeIds;
+    }
+
+    /**
+     * @return 命令拆分阶段的耗时直方图，单位为纳秒。
+     * <p>
+     * The time histogram of the command splitting phase, in nanoseconds.
+     */
+    public HistogramSnapshot getParse() {
+        return this.parse;
+    }
+
+    /**
+     * @return 语法树匹配阶段的耗时直方图，单位为纳秒。
+     * <p>
+     * The time histogram of the syntax tree matching phase, in nanoseconds.
+     */
+    public HistogramSnapshot getWalk() {
+        return this.walk;
+    }
+
+    /**
+     * @return 执行器运行阶段的耗时直方图，单位为纳秒。
+     * <p>
+     * The time histogram of the executor running phase, in nanoseconds.
+     */
+    public HistogramSnapshot getExecute() {
+        return this.execute;
+    }
+
+    /**
+     * @return 每个语法对象被匹配到的次数。
+     * <p>
+     * The number of times each syntax object was matched.
+     */
+    public Map<Syntax, Long> getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return 每个执行器的耗时直方图，单位为纳秒。
+     * <p>
+     * The time histogram of each executor, in nanoseconds.
+     */
+    public Map<ActuatorParam, HistogramSnapshot> getActuators() {
+        return this.actuators;
+    }
+
+    /**
+     * @param node 快照中的语法对象或执行器。
+     *             <p>
+     *             A syntax object or executor in the snapshot.
+     * @return 语法对象稳定的编号，也就是从回调器出发到达它的参数路径，例如 "select/^_^/from"，已经不在语法树中的语法对象会返回以 "#" 开头的编号。
+     * <p>
+     * The stable id of the syntax object, that is, the parameter path from the callback to it, such as "select/^_^/from". Syntax objects that are no longer in the syntax tree return an id starting with "#".
+     */
+    public String getNodeId(Syntax node) {
+        final String id = this.nodeIds.get(node);
+        return id == null ? '#' + Integer.toHexString(System.identityHashCode(node)) : id;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{" +
+                "parse=" + this.parse +
+                ", walk=" + this.walk +
+                ", execute=" + this.execute +
+                ", nodes=" + this.hits.size() +
+                ", actuators=" + this.actuators.size() +
+                '}';
+    }
+}
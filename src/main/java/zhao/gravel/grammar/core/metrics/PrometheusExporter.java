@@ -0,0 +1,197 @@
+package zhao.gravel.grammar.core.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import zhao.gravel.grammar.command.ActuatorAliasParam;
+import zhao.gravel.grammar.command.ActuatorParam;
+import zhao.gravel.grammar.command.Syntax;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Prometheus 指标导出器，其能够将语法指标快照转换成为 Prometheus 文本格式，也可以使用 JDK 内置的 HTTP 服务器在 /metrics 路径上提供指标。
+ * <p>
+ * Prometheus metrics exporter, which can convert a grammar metrics snapshot into the Prometheus text format, and can also serve the metrics on the /metrics path using the HTTP server built into the JDK.
+ * <p>
+ * PS：所有的耗时都以秒为单位导出，每个语法对象与执行器都是一个单独的序列，其 path 标签是从回调器出发到达它的参数路径，因此名称相同的语法对象（例如所有的通配符）不会被合并。
+ *
+ * @author zhao
+ */
+public final class PrometheusExporter implements Closeable {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final HttpServer server;
+
+    private PrometheusExporter(HttpServer server) {
+        this.server = server;
+    }
+
+    /**
+     * 启动一个 HTTP 服务器，并在 /metrics 路径上提供指定语法指标的 Prometheus 文本。
+     * <p>
+     * Start an HTTP server and serve the Prometheus text of the specified grammar metrics on the /metrics path.
+     *
+     * @param address 服务器需要绑定的地址。
+     *                <p>
+     *                The address that the server needs to bind.
+     * @param metrics 需要被导出的语法指标对象。
+     *                <p>
+     *                The grammar metrics object that needs to be exported.
+     * @return 已经启动的导出器，使用完毕之后需要调用 close 关闭。
+     * <p>
+     * The started exporter, which needs to be closed by calling close after use.
+     * @throws IOException 服务器无法绑定到指定的地址。
+     */
+    public static PrometheusExporter start(InetSocketAddress address, GrammarMetrics metrics) throws IOException {
+        return start(address, metrics::snapshot);
+    }
+
+    /**
+     * 启动一个 HTTP 服务器，并在 /metrics 路径上提供快照函数返回的指标的 Prometheus 文本。
+     * <p>
+     * Start an HTTP server and serve the Prometheus text of the metrics returned by the snapshot function on the /metrics path.
+     *
+     * @param address  服务器需要绑定的地址。
+     *                 <p>
+     *                 The address that the server needs to bind.
+     * @param snapshot 每次请求时用于获取指标快照的函数。
+     *                 <p>
+     *                 The function used to obtain the metrics snapshot on each request.
+     * @return 已经启动的导出器，使用完毕之后需要调用 close 关闭。
+     * <p>
+     * The started exporter, which needs to be closed by calling close after use.
+     * @throws IOException 服务器无法绑定到指定的地址。
+     */
+    public static PrometheusExporter start(InetSocketAddress address, Supplier<MetricsSnapshot> snapshot) throws IOException {
+        final HttpServer server = HttpServer.create(address, 0);
+        server.createContext("/metrics", exchange -> {
+            final byte[] body = format(snapshot.get()).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+        return new PrometheusExporter(server);
+    }
+
+    /**
+     * 将语法指标快照转换成为 Prometheus 文本格式。
+     * <p>
+     * Convert a grammar metrics snapshot into the Prometheus text format.
+     *
+     * @param snapshot 需要被转换的指标快照。
+     *                 <p>
+     *                 The metrics snapshot that needs to be converted.
+     * @return Prometheus 文本格式的指标。
+     * <p>
+     * Metrics in the Prometheus text format.
+     */
+    public static String format(MetricsSnapshot snapshot) {
+        final StringBuilder res = new StringBuilder(1024);
+        summary(res, "gravel_parse_seconds", "Time taken to split commands into parameters.", "", snapshot.getParse());
+        summary(res, "gravel_walk_seconds", "Time taken to match parameters against the syntax tree.", "", snapshot.getWalk());
+        summary(res, "gravel_execute_seconds", "Time taken to run executors.", "", snapshot.getExecute());
+
+        // 按照路径排序 每个语法对象都是一个单独的序列
+        final TreeMap<String, Map.Entry<Syntax, Long>> hits = new TreeMap<>();
+        for (Map.Entry<Syntax, Long> entry : snapshot.getHits().entrySet()) {
+            hits.put(snapshot.getNodeId(entry.getKey()), entry);
+        }
+        res.append("# HELP gravel_node_hits_total Number of times each syntax node was matched.\n")
+                .append("# TYPE gravel_node_hits_total counter\n");
+        for (Map.Entry<String, Map.Entry<Syntax, Long>> entry : hits.entrySet()) {
+            res.append("gravel_node_hits_total{");
+            label(res, "node", entry.getValue().getKey().getSyntaxName());
+            label(res, "path", entry.getKey());
+            res.setLength(res.length() - 1);
+            res.append("} ").append(entry.getValue().getValue()).append('\n');
+        }
+
+        final TreeMap<String, Map.Entry<ActuatorParam, HistogramSnapshot>> actuators = new TreeMap<>();
+        for (Map.Entry<ActuatorParam, HistogramSnapshot> entry : snapshot.getActuators().entrySet()) {
+            actuators.put(snapshot.getNodeId(entry.getKey()), entry);
+        }
+        boolean header = true;
+        for (Map.Entry<String, Map.Entry<ActuatorParam, HistogramSnapshot>> entry : actuators.entrySet()) {
+            final ActuatorParam actuator = entry.getValue().getKey();
+            final StringBuilder label = new StringBuilder(64);
+            label(label, "actuator", actuator instanceof ActuatorAliasParam ? ((ActuatorAliasParam) actuator).getAliasName() : actuator.getSyntaxName());
+            label(label, "path", entry.getKey());
+            summary(res, "gravel_actuator_seconds", header ? "Time taken by each executor." : null, label.toString(), entry.getValue().getValue());
+            header = false;
+        }
+        return res.toString();
+    }
+
+    /**
+     * 追加一个以逗号结尾的标签。
+     */
+    private static void label(StringBuilder res, String name, String value) {
+        res.append(name).append("=\"");
+        escape(res, value).append("\",");
+    }
+
+    /**
+     * @param label 以逗号结尾的所有标签，没有标签时为空字符串。
+     */
+    private static void summary(StringBuilder res, String name, String help, String label, HistogramSnapshot histogram) {
+        if (help != null) {
+            res.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                    .append("# TYPE ").append(name).append(" summary\n");
+        }
+        for (double quantile : QUANTILES) {
+            res.append(name).append('{').append(label).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getValueAtPercentile(quantile * 100))).append('\n');
+        }
+        final String suffix = label.isEmpty() ? "" : '{' + label.substring(0, label.length() - 1) + '}';
+        res.append(name).append("_sum").append(suffix).append(' ').append(seconds(histogram.getSum())).append('\n');
+        res.append(name).append("_count").append(suffix).append(' ').append(histogram.getCount()).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static StringBuilder escape(StringBuilder res, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                res.append('\\').append(c);
+            } else if (c == '\n') {
+                res.append("\\n");
+            } else {
+                res.append(c);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @return 服务器实际绑定的地址，当绑定的端口为 0 时可以通过此函数获取到真正的端口。
+     * <p>
+     * The address actually bound by the server. When the bound port is 0, the real port can be obtained through this function.
+     */
+    public InetSocketAddress getAddress() {
+        return this.server.getAddress();
+    }
+
+    /**
+     * 关闭 HTTP 服务器。
+     * <p>
+     * Close the HTTP server.
+     */
+    @Override
+    public void close() {
+        this.server.stop(0);
+    }
+}
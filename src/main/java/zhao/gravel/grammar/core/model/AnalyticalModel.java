@@ -1,5 +1,9 @@
 package zhao.gravel.grammar.core.model;
 
+import zhao.gravel.grammar.command.Syntax;
+
+import java.util.Collections;
+
 public enum AnalyticalModel {
 
     /**
@@ -49,7 +53,6 @@ public enum AnalyticalModel {
             return RegularParser.getInstance(pattern);
         }
     },
-
     /**
      * 正则匹配模式，此模式会提取出正则中组编号为 1 的表达式对应的所有字符串数据，并将所有提取到的字符串组合成为一个数组。
      * <p>
@@ -73,7 +76,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -100,7 +103,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -127,7 +130,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -154,7 +157,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -181,7 +184,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -208,7 +211,7 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
         }
     },
 
@@ -235,7 +238,101 @@ public enum AnalyticalModel {
          */
         @Override
         public Parser getParser(String pattern) {
-            return RegularGroupParser.getInstance(pattern).setGroupNum(NUM);
+            return RegularGroupParser.getInstance(pattern, NUM);
+        }
+    },
+
+    /**
+     * SQL 词法解析模式，此模式不使用正则表达式，而是通过一次线性的扫描将 SQL 语句拆分成为关键字与子句，拆分结果与 BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1 在 REGULAR_MODEL_1 模式下的结果一致，此模式会忽略匹配模式字符串。
+     * <p>
+     * SQL lexical parsing mode. This mode does not use regular expressions, but splits SQL statements into keywords and clauses through one linear scan. The result is consistent with BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1 in REGULAR_MODEL_1 mode. This mode ignores the matching pattern string.
+     */
+    SQL_LEXER_MODEL {
+        /**
+         * 根据指定的匹配模式获取到解析器对象。
+         * <p>
+         * Retrieve the parser object based on the specified matching pattern.
+         *
+         * @param pattern 指定的解析匹配模式，此模式会忽略此参数。
+         *                <p>
+         *                The specified parsing matching pattern, which is ignored by this mode.
+         * @return 构建出来的解析器对象。
+         * <p>
+         * The constructed parser object.
+         */
+        @Override
+        public Parser getParser(String pattern) {
+            return SqlLexer.getInstance();
+        }
+    },
+
+    /**
+     * 关键字匹配模式，此模式会收集语法树中所有的参数名称做为关键字，并使用 Aho-Corasick 自动机在线性时间内将语句拆分成为关键字与关键字之间的通配符参数，不需要编写任何的正则表达式，此模式需要通过 getParser(String, Syntax) 获取解析器。
+     * <p>
+     * Keyword matching mode. This mode collects all parameter names in the syntax tree as keywords, and uses an Aho-Corasick automaton to split the statement into keywords and the wildcard parameters between keywords in linear time, without writing any regular expression. The parser of this mode needs to be obtained through getParser(String, Syntax).
+     * <p>
+     * PS：语法树发生变化之后需要重新设置一次解析模式，这样解析器才能够识别新的关键字。
+     */
+    KEYWORD_MODEL {
+        /**
+         * 在没有语法树的情况下构建出一个不包含任何关键字的解析器，此解析器会将整个语句做为一个参数，需要识别关键字时请使用 getParser(String, Syntax)。
+         * <p>
+         * Build a parser without any keyword when there is no syntax tree. This parser treats the whole statement as one parameter. Use getParser(String, Syntax) when keywords need to be recognized.
+         *
+         * @param pattern 指定的解析匹配模式，此模式会忽略此参数。
+         *                <p>
+         *                The specified parsing matching pattern, which is ignored by this mode.
+         * @return 构建出来的解析器对象。
+         * <p>
+         * The constructed parser object.
+         */
+        @Override
+        public Parser getParser(String pattern) {
+            return KeywordParser.create(Collections.<String>emptyList());
+        }
+
+        /**
+         * 根据语法树中所有的参数名称构建出关键字解析器。
+         * <p>
+         * Build a keyword parser based on all parameter names in the syntax tree.
+         *
+         * @param pattern 指定的解析匹配模式，此模式会忽略此参数。
+         *                <p>
+         *                The specified parsing matching pattern, which is ignored by this mode.
+         * @param root    需要使用此解析器的语法树的根节点。
+         *                <p>
+         *                The root node of the syntax tree that needs to use this parser.
+         * @return 构建出来的解析器对象。
+         * <p>
+         * The constructed parser object.
+         */
+        @Override
+        public Parser getParser(String pattern, Syntax root) {
+            return KeywordParser.create(root);
+        }
+    },
+
+    /**
+     * 多组正则匹配模式，此模式只会对语句进行一次扫描，并按照匹配的顺序提取出每次匹配中所有编号大于 0 的组，需要提取指定的组编号或组名称时，可以通过 RegularMultiGroupParser.getInstance 获取解析器，并使用回调器的 setParser 设置。
+     * <p>
+     * Multi-group regular matching mode. This mode scans the statement only once and extracts all groups with a number greater than 0 in each match in match order. To extract specific group numbers or group names, obtain the parser through RegularMultiGroupParser.getInstance and set it with the setParser of the callback.
+     */
+    REGULAR_MODEL_GROUPS {
+        /**
+         * 根据指定的匹配模式获取到解析器对象。
+         * <p>
+         * Retrieve the parser object based on the specified matching pattern.
+         *
+         * @param pattern 指定的解析匹配模式，不同的AnalyticalModel模式对此参数有不同的要求与使用方法。
+         *                <p>
+         *                The specified parsing matching pattern has different requirements and usage methods for this parameter for different AnalyticalModel patterns.
+         * @return 构建出来的解析器对象。
+         * <p>
+         * The constructed parser object.
+         */
+        @Override
+        public Parser getParser(String pattern) {
+            return RegularMultiGroupParser.getAllGroupsInstance(pattern);
         }
     };
 
@@ -252,4 +349,23 @@ public enum AnalyticalModel {
      * The constructed parser object.
      */
     public abstract Parser getParser(String pattern);
+
+    /**
+     * 根据指定的匹配模式以及需要使用解析器的语法树获取到解析器对象，默认情况下会忽略语法树，需要根据语法树构建解析器的模式会重写此函数。
+     * <p>
+     * Retrieve the parser object based on the specified matching pattern and the syntax tree that needs to use the parser. By default the syntax tree is ignored; modes that need to build parsers from the syntax tree override this function.
+     *
+     * @param pattern 指定的解析匹配模式，不同的AnalyticalModel模式对此参数有不同的要求与使用方法。
+     *                <p>
+     *                The specified parsing matching pattern has different requirements and usage methods for this parameter for different AnalyticalModel patterns.
+     * @param root    需要使用此解析器的语法树的根节点，一般是回调器对象。
+     *                <p>
+     *                The root node of the syntax tree that needs to use this parser, generally a callback object.
+     * @return 构建出来的解析器对象。
+     * <p>
+     * The constructed parser object.
+     */
+    public Parser getParser(String pattern, Syntax root) {
+        return this.getParser(pattern);
+    }
 }
@@ -2,8 +2,6 @@ package zhao.gravel.grammar.core.model;
 
 import zhao.utils.StrUtils;
 
-import java.util.HashMap;
-
 /**
  * 字符串解析器，通过将匹配模式字符串做为分隔符或其它数据，具体需要根据函数的描述来使用。
  * <p>
@@ -11,14 +9,7 @@ import java.util.HashMap;
  *
  * @author zhao
  */
-public class CharacterParser implements Parser {
-
-    /**
-     * 解析器与匹配模式字符串映射表
-     * <p>
-     * Parser and Matching Pattern String Mapping Table
-     */
-    private static final HashMap<String, CharacterParser> HASH_MAP = new HashMap<>();
+public class CharacterParser implements SpanParser {
 
     private final String pattern;
 
@@ -27,18 +18,14 @@ public class CharacterParser implements Parser {
     }
 
     /**
-     * 获取到指定匹配模式的解析器对象。
+     * 获取到指定匹配模式的解析器对象，解析器会被缓存在 ParserRegistry 中。
      *
      * @param pattern 匹配模式的字符串
      * @return 解析器
+     * @see ParserRegistry
      */
     public static CharacterParser getInstance(String pattern) {
-        CharacterParser parser = HASH_MAP.get(pattern);
-        if (parser == null) {
-            parser = new CharacterParser(pattern);
-            HASH_MAP.put(parser.getPattern(), parser);
-        }
-        return parser;
+        return ParserRegistry.get(CharacterParser.class, pattern, 0, () -> new CharacterParser(pattern));
     }
 
     @Override
@@ -50,4 +37,59 @@ public class CharacterParser implements Parser {
     public String[] get(String grammar) {
         return StrUtils.splitBy(grammar, this.pattern);
     }
+
+    /**
+     * 将一个语法语句按照匹配模式字符串进行拆分，并将每个参数的区间写入到缓冲区中，拆分规则与 String.split 一致，末尾的空参数会被移除。
+     * <p>
+     * Split a grammar statement by the matching pattern string and write the span of each parameter into the buffer. The splitting rules are consistent with String.split, and empty parameters at the end will be removed.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @param spans   用于接收拆分结果的缓冲区，其中原有的数据会被清空。
+     *                <p>
+     *                The buffer used to receive the split result, the original data in it will be cleared.
+     * @return 拆分出来的参数数量。
+     * <p>
+     * The number of split parameters.
+     */
+    @Override
+    public int get(CharSequence grammar, TokenSpans spans) {
+        spans.reset(grammar);
+        final int length = grammar.length(), patternLength = this.pattern.length();
+        if (patternLength == 0) {
+            for (int i = 0; i < length; i++) {
+                spans.add(i, 1);
+            }
+            return spans.size();
+        }
+        final char first = this.pattern.charAt(0);
+        int start = 0;
+        for (int i = 0, end = length - patternLength; i <= end; i++) {
+            if (grammar.charAt(i) == first && this.matchAt(grammar, i)) {
+                spans.add(start, i - start);
+                i += patternLength - 1;
+                start = i + 1;
+            }
+        }
+        if (start == 0) {
+            // 没有找到分隔符 整个语句就是一个参数
+            spans.add(0, length);
+            return 1;
+        }
+        spans.add(start, length - start);
+        while (spans.size() > 0 && spans.length(spans.size() - 1) == 0) {
+            spans.removeLast();
+        }
+        return spans.size();
+    }
+
+    private boolean matchAt(CharSequence grammar, int offset) {
+        for (int i = 1, patternLength = this.pattern.length(); i < patternLength; i++) {
+            if (grammar.charAt(offset + i) != this.pattern.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
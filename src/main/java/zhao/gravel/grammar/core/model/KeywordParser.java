@@ -0,0 +1,301 @@
+package zhao.gravel.grammar.core.model;
+
+import zhao.gravel.grammar.command.BoundSyntax;
+import zhao.gravel.grammar.command.GrammarParam;
+import zhao.gravel.grammar.command.Syntax;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 关键字解析器，其使用语法树中所有参数名称构建出的 Aho-Corasick 自动机在线性时间内找到语句中所有的关键字，两个关键字之间的内容会做为一个通配符参数。
+ * <p>
+ * Keyword parser, which uses an Aho-Corasick automaton built from all parameter names in the syntax tree to find all keywords in the statement in linear time. The content between two keywords is taken as one wildcard parameter.
+ * <p>
+ * PS：关键字的匹配忽略大小写，关键字中的空格可以匹配任意数量的空白字符，并且关键字的前后必须是空白字符或者语句的边界，重叠的关键字会优先选择最左边并且最长的那个。
+ *
+ * @author zhao
+ */
+public final class KeywordParser implements Parser {
+
+    private final String[] keywords;
+    private final int[] keywordLength;
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] output;
+    private final int[] outputLink;
+
+    private KeywordParser(String[] keywords, int[] keywordLength, char[][] edgeChars, int[][] edgeTargets, int[] fail, int[] output, int[] outputLink) {
+        this.keywords = keywords;
+        this.keywordLength = keywordLength;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.outputLink = outputLink;
+    }
+
+    /**
+     * 收集语法树中除了根节点与通配符之外所有的参数名称，并以此构建出关键字解析器，语法树发生变化之后需要重新构建。
+     * <p>
+     * Collect all parameter names in the syntax tree except the root node and wildcards, and build a keyword parser with them. It needs to be rebuilt after the syntax tree changes.
+     *
+     * @param root 语法树的根节点，一般是回调器对象。
+     *             <p>
+     *             The root node of the syntax tree, generally a callback object.
+     * @return 关键字解析器对象。
+     * <p>
+     * The keyword parser object.
+     */
+    public static KeywordParser create(Syntax root) {
+        final ArrayList<String> names = new ArrayList<>();
+        final Set<Syntax> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        final ArrayDeque<Syntax> queue = new ArrayDeque<>();
+        queue.add(root);
+        visited.add(root);
+        while (!queue.isEmpty()) {
+            Syntax now = queue.poll();
+            if (now instanceof BoundSyntax) {
+                now = ((BoundSyntax) now).getTemplate();
+            }
+            if (!(now instanceof GrammarParam)) {
+                continue;
+            }
+            for (Map.Entry<String, Syntax> entry : ((GrammarParam) now).getSubSyntax().entrySet()) {
+                if (!Syntax.WILDCARD.equals(entry.getKey())) {
+                    names.add(entry.getKey());
+                }
+                if (visited.add(entry.getValue())) {
+                    queue.add(entry.getValue());
+                }
+            }
+        }
+        return create(names);
+    }
+
+    /**
+     * 使用指定的关键字构建出关键字解析器。
+     * <p>
+     * Build a keyword parser with the specified keywords.
+     *
+     * @param keywords 所有的关键字，忽略大小写之后相同的关键字只会保留第一个。
+     *                 <p>
+     *                 All keywords. Only the first one of keywords that are the same ignoring case is kept.
+     * @return 关键字解析器对象。
+     * <p>
+     * The keyword parser object.
+     */
+    public static KeywordParser create(Iterable<String> keywords) {
+        // 规范化之后的关键字 -> 原始的关键字
+        final LinkedHashMap<String, String> normalized = new LinkedHashMap<>();
+        for (String keyword : keywords) {
+            final String key = normalize(keyword);
+            if (!key.isEmpty()) {
+                normalized.putIfAbsent(key, keyword);
+            }
+        }
+        final ArrayList<char[]> edgeChars = new ArrayList<>();
+        final ArrayList<int[]> edgeTargets = new ArrayList<>();
+        final ArrayList<Integer> output = new ArrayList<>();
+        edgeChars.add(new char[0]);
+        edgeTargets.add(new int[0]);
+        output.add(-1);
+        final String[] originals = new String[normalized.size()];
+        final int[] lengths = new int[normalized.size()];
+        int id = 0;
+        for (Map.Entry<String, String> entry : normalized.entrySet()) {
+            final String key = entry.getKey();
+            int state = 0;
+            for (int i = 0; i < key.length(); i++) {
+                final char c = key.charAt(i);
+                int next = next(edgeChars.get(state), edgeTargets.get(state), c);
+                if (next == -1) {
+                    next = edgeChars.size();
+                    edgeChars.add(new char[0]);
+                    edgeTargets.add(new int[0]);
+                    output.add(-1);
+                    final char[] chars = Arrays.copyOf(edgeChars.get(state), edgeChars.get(state).length + 1);
+                    final int[] targets = Arrays.copyOf(edgeTargets.get(state), chars.length);
+                    chars[chars.length - 1] = c;
+                    targets[targets.length - 1] = next;
+                    edgeChars.set(state, chars);
+                    edgeTargets.set(state, targets);
+                }
+                state = next;
+            }
+            output.set(state, id);
+            originals[id] = entry.getValue();
+            lengths[id++] = key.length();
+        }
+
+        // 广度优先的计算失败指针 以及沿着失败指针能够找到的下一个输出状态
+        final int size = edgeChars.size();
+        final int[] fail = new int[size];
+        final int[] outputs = new int[size];
+        final int[] outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int state = 0; state < size; state++) {
+            outputs[state] = output.get(state);
+        }
+        for (int child : edgeTargets.get(0)) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            final char[] chars = edgeChars.get(state);
+            final int[] targets = edgeTargets.get(state);
+            for (int e = 0; e < chars.length; e++) {
+                final int child = targets[e];
+                int f = fail[state];
+                int next;
+                while ((next = next(edgeChars.get(f), edgeTargets.get(f), chars[e])) == -1 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = next == -1 ? 0 : next;
+                outputLink[child] = outputs[fail[child]] != -1 ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new KeywordParser(originals, lengths, edgeChars.toArray(new char[0][]), edgeTargets.toArray(new int[0][]), fail, outputs, outputLink);
+    }
+
+    private static int next(char[] chars, int[] targets, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return targets[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 忽略大小写并且将连续的空白字符替换为一个空格之后的关键字。
+     */
+    private static String normalize(String keyword) {
+        final StringBuilder builder = new StringBuilder(keyword.length());
+        boolean space = true;
+        for (int i = 0; i < keyword.length(); i++) {
+            final char c = keyword.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!space) {
+                    builder.append(' ');
+                    space = true;
+                }
+            } else {
+                builder.append(Character.toLowerCase(c));
+                space = false;
+            }
+        }
+        if (builder.length() > 0 && builder.charAt(builder.length() - 1) == ' ') {
+            builder.setLength(builder.length() - 1);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return 当前解析器中所有的关键字，使用 "|" 分隔。
+     * <p>
+     * All keywords in the current parser, separated by "|".
+     */
+    @Override
+    public String getPattern() {
+        return String.join("|", this.keywords);
+    }
+
+    /**
+     * 将一个语法语句拆分成为关键字与关键字之间的通配符参数。
+     * <p>
+     * Split a grammar statement into keywords and the wildcard parameters between keywords.
+     *
+     * @param grammar 需要被拆分的字符串。
+     *                <p>
+     *                The string that needs to be split.
+     * @return 拆分之后的关键字与通配符参数，关键字会使用语法树中的名称，通配符参数两端的空白字符会被去除。
+     * <p>
+     * The keywords and wildcard parameters after splitting. Keywords use the names in the syntax tree, and the whitespace at both ends of wildcard parameters is removed.
+     */
+    @Override
+    public String[] get(String grammar) {
+        final int length = grammar.length();
+        // 规范化之后的字符在原始语句中的位置
+        final int[] position = new int[length];
+        // 所有匹配到的关键字的起始位置、结束位置以及编号
+        int[] starts = new int[8], ends = new int[8], ids = new int[8];
+        int count = 0, normalizedLength = 0, state = 0;
+        boolean space = false;
+        for (int i = 0; i < length; i++) {
+            char c = grammar.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (space) {
+                    continue;
+                }
+                space = true;
+                c = ' ';
+            } else {
+                space = false;
+                c = Character.toLowerCase(c);
+            }
+            position[normalizedLength++] = i;
+            int next;
+            while ((next = next(this.edgeChars[state], this.edgeTargets[state], c)) == -1 && state != 0) {
+                state = this.fail[state];
+            }
+            state = next == -1 ? 0 : next;
+            for (int s = this.output[state] != -1 ? state : this.outputLink[state]; s != -1; s = this.outputLink[s]) {
+                final int id = this.output[s];
+                final int start = position[normalizedLength - this.keywordLength[id]];
+                final int end = i + 1;
+                if ((start == 0 || Character.isWhitespace(grammar.charAt(start - 1))) && (end == length || Character.isWhitespace(grammar.charAt(end)))) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count << 1);
+                        ends = Arrays.copyOf(ends, count << 1);
+                        ids = Arrays.copyOf(ids, count << 1);
+                    }
+                    // 按照起始位置升序 结束位置降序插入 匹配结果基本是有序的 因此插入的代价很小
+                    int m = count++;
+                    while (m > 0 && (starts[m - 1] > start || starts[m - 1] == start && ends[m - 1] < end)) {
+                        starts[m] = starts[m - 1];
+                        ends[m] = ends[m - 1];
+                        ids[m] = ids[m - 1];
+                        m--;
+                    }
+                    starts[m] = start;
+                    ends[m] = end;
+                    ids[m] = id;
+                }
+            }
+        }
+        final ArrayList<String> tokens = new ArrayList<>(count * 2 + 1);
+        int last = 0;
+        for (int m = 0; m < count; m++) {
+            if (starts[m] < last) {
+                continue;
+            }
+            addClause(tokens, grammar, last, starts[m]);
+            tokens.add(this.keywords[ids[m]]);
+            last = ends[m];
+        }
+        addClause(tokens, grammar, last, length);
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void addClause(ArrayList<String> tokens, String grammar, int start, int end) {
+        while (start < end && Character.isWhitespace(grammar.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(grammar.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            tokens.add(grammar.substring(start, end));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package zhao.gravel.grammar.core.model;
+
+/**
+ * 惰性解析器对象接口，其能够以游标的方式逐个拆分参数，当匹配过程提前结束的时候，剩余的命令不会被拆分。
+ * <p>
+ * The lazy parser object interface, which can split parameters one by one through a cursor. When the matching process ends early, the rest of the command will not be split.
+ *
+ * @author zhao
+ */
+public interface LazyParser extends Parser {
+
+    /**
+     * 创建出一个用于逐个拆分指定语句中参数的游标，拆分规则与 get(String) 一致。
+     * <p>
+     * Create a cursor used to split the parameters in the specified statement one by one. The splitting rules are consistent with get(String).
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @return 参数游标对象。
+     * <p>
+     * The parameter cursor object.
+     */
+    TokenCursor cursor(CharSequence grammar);
+}
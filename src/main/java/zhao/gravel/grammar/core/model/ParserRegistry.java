@@ -0,0 +1,132 @@
+package zhao.gravel.grammar.core.model;
+
+import zhao.gravel.grammar.core.cache.CacheStats;
+import zhao.gravel.grammar.core.cache.LruCache;
+
+import java.util.function.Supplier;
+
+/**
+ * 解析器注册表，所有通过 getInstance 获取的解析器都会按照 (解析器类型, 匹配模式, 组编号) 被缓存在这里，注册表是线程安全且有界的，超过容量之后最久没有被使用的解析器会被淘汰。
+ * <p>
+ * Parser registry. All parsers obtained through getInstance are cached here by (parser type, matching pattern, group number). The registry is thread-safe and bounded, and the least recently used parser will be evicted after exceeding the capacity.
+ * <p>
+ * PS：被淘汰的解析器依旧可以被持有它的回调器继续使用，只是下一次获取的时候会重新创建。
+ *
+ * @author zhao
+ */
+public final class ParserRegistry {
+
+    /**
+     * 注册表默认能够缓存的解析器数量
+     * <p>
+     * The number of parsers that the registry can cache by default
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private static final LruCache<Key, Parser> CACHE = new LruCache<>(DEFAULT_MAXIMUM_SIZE);
+
+    private ParserRegistry() {
+    }
+
+    /**
+     * 获取到指定类型、匹配模式与组编号对应的解析器，如果注册表中没有此解析器，则使用构造函数创建并注册。
+     * <p>
+     * Obtain the parser corresponding to the specified type, matching pattern and group number. If the parser is not in the registry, it will be created with the creator and registered.
+     *
+     * @param type    解析器的类型，不同类型的解析器不会共享同一个缓存项。
+     *                <p>
+     *                The type of the parser, parsers of different types will not share the same cache entry.
+     * @param pattern 匹配模式的字符串。
+     *                <p>
+     *                The matching pattern string.
+     * @param group   解析器使用的组编号或者组列表，其需要正确的实现 equals 与 hashCode，不需要组编号的解析器使用 0。
+     *                <p>
+     *                The group number or group list used by the parser, which needs to implement equals and hashCode correctly. Parsers that do not need a group number use 0.
+     * @param creator 解析器不存在时用于创建解析器的函数。
+     *                <p>
+     *                The function used to create the parser when it does not exist.
+     * @param <P>     解析器的类型。
+     * @return 注册表中的解析器对象。
+     * <p>
+     * The parser object in the registry.
+     */
+    static <P extends Parser> P get(Class<P> type, String pattern, Object group, Supplier<P> creator) {
+        return type.cast(CACHE.computeIfAbsent(new Key(type, pattern, group), key -> creator.get()));
+    }
+
+    /**
+     * @return 注册表当前的统计信息，其中包含命中、未命中与淘汰的次数。
+     * <p>
+     * The current statistics of the registry, which include the number of hits, misses and evictions.
+     */
+    public static CacheStats getStats() {
+        return CACHE.getStats();
+    }
+
+    /**
+     * @return 注册表中最多能够缓存的解析器数量。
+     * <p>
+     * The maximum number of parsers that can be cached in the registry.
+     */
+    public static int getMaximumSize() {
+        return CACHE.getMaximumSize();
+    }
+
+    /**
+     * 设置注册表中最多能够缓存的解析器数量，在动态的根据用户提供的匹配模式创建回调器的场景中，可以通过此函数限制内存的占用。
+     * <p>
+     * Set the maximum number of parsers that can be cached in the registry. When callbacks are created dynamically from user-supplied patterns, this function can be used to limit memory usage.
+     *
+     * @param maximumSize 注册表中最多能够缓存的解析器数量。
+     *                    <p>
+     *                    The maximum number of parsers that can be cached in the registry.
+     */
+    public static void setMaximumSize(int maximumSize) {
+        CACHE.setMaximumSize(maximumSize);
+    }
+
+    /**
+     * 清空注册表中所有的解析器。
+     * <p>
+     * Clear all parsers in the registry.
+     */
+    public static void clear() {
+        CACHE.clear();
+    }
+
+    /**
+     * 注册表中解析器的 key。
+     * <p>
+     * The key of the parser in the registry.
+     */
+    private static final class Key {
+        private final Class<?> type;
+        private final String pattern;
+        private final Object group;
+        private final int hash;
+
+        Key(Class<?> type, String pattern, Object group) {
+            this.type = type;
+            this.pattern = pattern;
+            this.group = group;
+            this.hash = (type.hashCode() * 31 + pattern.hashCode()) * 31 + group.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return this.type == key.type && this.pattern.equals(key.pattern) && this.group.equals(key.group);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package zhao.gravel.grammar.core.model;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.regex.Matcher;
 
 /**
@@ -11,33 +9,47 @@ import java.util.regex.Matcher;
  *
  * @author zhao
  */
-public class RegularGroupParser extends RegularParser {
+public class RegularGroupParser extends RegularParser implements LazyParser {
 
+    private final int groupNum;
     /**
-     * 解析器与匹配模式字符串映射表
+     * 每个线程可重复使用的参数游标对象
      * <p>
-     * Parser and Matching Pattern String Mapping Table
+     * Parameter cursor object that each thread can reuse
      */
-    protected static final HashMap<String, RegularGroupParser> REGULAR_GROUP_PARSER_HASH_MAP = new HashMap<>();
-    private int groupNum;
+    private final ThreadLocal<GroupCursor> cursors;
 
-    protected RegularGroupParser(String pattern) {
+    protected RegularGroupParser(String pattern, int groupNum) {
         super(pattern);
+        if (groupNum < 0 || groupNum > this.pattern.matcher("").groupCount()) {
+            throw new IllegalArgumentException("No group " + groupNum + " in pattern: " + pattern);
+        }
+        this.groupNum = groupNum;
+        this.cursors = ThreadLocal.withInitial(() -> new GroupCursor(this.pattern.matcher(""), groupNum));
     }
 
     /**
-     * 获取到指定匹配模式的解析器对象。
+     * 获取到指定匹配模式的解析器对象，此解析器提取的是组编号为 0 的整个匹配结果。
      *
      * @param pattern 匹配模式的字符串
      * @return 解析器
      */
     public static RegularGroupParser getInstance(String pattern) {
-        RegularGroupParser parser = REGULAR_GROUP_PARSER_HASH_MAP.get(pattern);
-        if (parser == null) {
-            parser = new RegularGroupParser(pattern);
-            REGULAR_GROUP_PARSER_HASH_MAP.put(parser.getPattern(), parser);
-        }
-        return parser;
+        return getInstance(pattern, 0);
+    }
+
+    /**
+     * 获取到指定匹配模式与组编号的解析器对象，解析器会按照 (匹配模式, 组编号) 被缓存在 ParserRegistry 中，因此使用相同匹配模式与不同组编号的回调器之间不会互相影响。
+     * <p>
+     * Obtain the parser object of the specified matching pattern and group number. The parser is cached in the ParserRegistry by (matching pattern, group number), so callbacks that use the same matching pattern with different group numbers will not interfere with each other.
+     *
+     * @param pattern  匹配模式的字符串
+     * @param groupNum 需要提取的正则组编号
+     * @return 解析器
+     * @see ParserRegistry
+     */
+    public static RegularGroupParser getInstance(String pattern, int groupNum) {
+        return ParserRegistry.get(RegularGroupParser.class, pattern, groupNum, () -> new RegularGroupParser(pattern, groupNum));
     }
 
     /**
@@ -54,12 +66,66 @@ public class RegularGroupParser extends RegularParser {
      */
     @Override
     public String[] get(String grammar) {
-        ArrayList<String> arrayList = new ArrayList<>();
-        final Matcher matcher = this.pattern.matcher(grammar);
-        while (matcher.find()) {
-            arrayList.add(matcher.group(this.getGroupNum()));
+        final TokenSpans spans = TokenSpans.acquire();
+        try {
+            this.get(grammar, spans);
+            return spans.toArray();
+        } finally {
+            spans.release();
+        }
+    }
+
+    /**
+     * 将正则表达式中指定编号的组匹配到的所有区间写入到缓冲区中，没有参与匹配的组会被忽略，匹配器对象会在当前线程中被复用。
+     * <p>
+     * Write all spans matched by the group with the specified number in the regular expression into the buffer. Groups that do not participate in the match will be ignored, and the matcher object will be reused in the current thread.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @param spans   用于接收拆分结果的缓冲区，其中原有的数据会被清空。
+     *                <p>
+     *                The buffer used to receive the split result, the original data in it will be cleared.
+     * @return 拆分出来的参数数量。
+     * <p>
+     * The number of split parameters.
+     */
+    @Override
+    public int get(CharSequence grammar, TokenSpans spans) {
+        spans.reset(grammar);
+        final Matcher m = this.matcher.get().reset(grammar);
+        final int groupNum = this.getGroupNum();
+        while (m.find()) {
+            final int start = m.start(groupNum);
+            if (start != -1) {
+                spans.add(start, m.end(groupNum) - start);
+            }
         }
-        return arrayList.toArray(new String[0]);
+        m.reset("");
+        return spans.size();
+    }
+
+    /**
+     * 创建出一个逐个提取指定编号的组匹配到的参数的游标，每次调用 advance 的时候正则表达式才会向后查找一次，游标会在当前线程中被复用。
+     * <p>
+     * Create a cursor that extracts the parameters matched by the group with the specified number one by one. The regular expression only searches forward once each time advance is called, and the cursor will be reused in the current thread.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @return 参数游标对象。
+     * <p>
+     * The parameter cursor object.
+     */
+    @Override
+    public TokenCursor cursor(CharSequence grammar) {
+        GroupCursor cursor = this.cursors.get();
+        if (cursor.inUse) {
+            // 当前线程的游标正在被使用 例如执行器中又运行了一个命令
+            cursor = new GroupCursor(this.pattern.matcher(""), this.groupNum);
+        }
+        cursor.reset(grammar);
+        return cursor;
     }
 
     /**
@@ -72,13 +138,64 @@ public class RegularGroupParser extends RegularParser {
     }
 
     /**
-     * @param groupNum 设置当前正则匹配的组编号
+     * 解析器的组编号是不可变的，此函数不会修改当前解析器，而是返回相同匹配模式下指定组编号对应的解析器。
+     * <p>
+     * The group number of the parser is immutable. This function does not modify the current parser, but returns the parser corresponding to the specified group number under the same matching pattern.
+     *
+     * @param groupNum 需要提取的正则组编号
      *                 <p>
-     *                 Set the group number for the current regular match
-     * @return 本对象的链式调用
+     *                 The regular group number that needs to be extracted
+     * @return 相同匹配模式下指定组编号对应的解析器
+     * @deprecated 请使用 {@link #getInstance(String, int)}，并使用此函数的返回值。
      */
+    @Deprecated
     public RegularGroupParser setGroupNum(int groupNum) {
-        this.groupNum = groupNum;
-        return this;
+        return groupNum == this.groupNum ? this : getInstance(this.patternStr, groupNum);
+    }
+
+    private static final class GroupCursor implements TokenCursor {
+
+        private final Matcher matcher;
+        private final int groupNum;
+        private CharSequence source;
+        private String token;
+        private boolean inUse;
+
+        GroupCursor(Matcher matcher, int groupNum) {
+            this.matcher = matcher;
+            this.groupNum = groupNum;
+        }
+
+        void reset(CharSequence grammar) {
+            this.matcher.reset(grammar);
+            this.source = grammar;
+            this.inUse = true;
+        }
+
+        @Override
+        public boolean advance() {
+            while (this.matcher.find()) {
+                final int start = this.matcher.start(this.groupNum);
+                if (start != -1) {
+                    this.token = this.source.subSequence(start, this.matcher.end(this.groupNum)).toString();
+                    return true;
+                }
+            }
+            this.token = null;
+            return false;
+        }
+
+        @Override
+        public String token() {
+            return this.token;
+        }
+
+        @Override
+        public void close() {
+            this.matcher.reset("");
+            this.source = null;
+            this.token = null;
+            this.inUse = false;
+        }
     }
 }
@@ -0,0 +1,247 @@
+package zhao.gravel.grammar.core.model;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 按多个组提取正则解析器，其只需要对语句进行一次扫描，就可以按照匹配的顺序提取出每次匹配中所有指定的组，组可以使用编号或者名称指定。
+ * <p>
+ * Regular parser by multiple groups, which only needs to scan the statement once to extract all specified groups in each match in match order. Groups can be specified by number or by name.
+ * <p>
+ * PS：没有参与匹配的组会被忽略，同一次匹配中的组会按照指定的顺序输出。
+ *
+ * @author zhao
+ */
+public class RegularMultiGroupParser extends RegularParser implements LazyParser {
+
+    /**
+     * 需要提取的组编号，使用组名称的时候为 null
+     */
+    private final int[] groups;
+    /**
+     * 需要提取的组名称，使用组编号的时候为 null
+     */
+    private final String[] names;
+    /**
+     * 每个线程可重复使用的参数游标对象
+     * <p>
+     * Parameter cursor object that each thread can reuse
+     */
+    private final ThreadLocal<MultiGroupCursor> cursors;
+
+    protected RegularMultiGroupParser(String pattern, int[] groups, String[] names) {
+        super(pattern);
+        final Matcher m = this.pattern.matcher("");
+        if (groups != null) {
+            for (int group : groups) {
+                if (group < 0 || group > m.groupCount()) {
+                    throw new IllegalArgumentException("No group " + group + " in pattern: " + pattern);
+                }
+            }
+        } else {
+            for (String name : names) {
+                if (!pattern.contains("(?<" + name + ">")) {
+                    throw new IllegalArgumentException("No group with name <" + name + "> in pattern: " + pattern);
+                }
+            }
+        }
+        this.groups = groups;
+        this.names = names;
+        this.cursors = ThreadLocal.withInitial(() -> new MultiGroupCursor(this.pattern.matcher("")));
+    }
+
+    /**
+     * 获取到指定匹配模式与组编号列表的解析器对象，解析器会被缓存在 ParserRegistry 中。
+     *
+     * @param pattern 匹配模式的字符串
+     * @param groups  需要提取的正则组编号，每次匹配中的组会按照此顺序输出
+     * @return 解析器
+     * @see ParserRegistry
+     */
+    public static RegularMultiGroupParser getInstance(String pattern, int... groups) {
+        final int[] copy = groups.clone();
+        return ParserRegistry.get(RegularMultiGroupParser.class, pattern, Arrays.toString(copy), () -> new RegularMultiGroupParser(pattern, copy, null));
+    }
+
+    /**
+     * 获取到指定匹配模式与组名称列表的解析器对象，解析器会被缓存在 ParserRegistry 中。
+     *
+     * @param pattern 匹配模式的字符串
+     * @param names   需要提取的正则组名称，每次匹配中的组会按照此顺序输出
+     * @return 解析器
+     * @see ParserRegistry
+     */
+    public static RegularMultiGroupParser getInstance(String pattern, String... names) {
+        final String[] copy = names.clone();
+        return ParserRegistry.get(RegularMultiGroupParser.class, pattern, Arrays.asList(copy), () -> new RegularMultiGroupParser(pattern, null, copy));
+    }
+
+    /**
+     * 获取到提取指定匹配模式中所有编号大于 0 的组的解析器对象。
+     *
+     * @param pattern 匹配模式的字符串
+     * @return 解析器
+     */
+    public static RegularMultiGroupParser getAllGroupsInstance(String pattern) {
+        final int[] groups = new int[Pattern.compile(pattern).matcher("").groupCount()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = i + 1;
+        }
+        return getInstance(pattern, groups);
+    }
+
+    /**
+     * @return 每次匹配中需要提取的组的数量。
+     * <p>
+     * The number of groups that need to be extracted in each match.
+     */
+    public int getGroupCount() {
+        return this.groups != null ? this.groups.length : this.names.length;
+    }
+
+    private int start(Matcher m, int index) {
+        return this.groups != null ? m.start(this.groups[index]) : m.start(this.names[index]);
+    }
+
+    private int end(Matcher m, int index) {
+        return this.groups != null ? m.end(this.groups[index]) : m.end(this.names[index]);
+    }
+
+    /**
+     * 将一个语法语句按照指定的匹配模式进行拆分。
+     * <p>
+     * Split a grammar statement according to the specified matching pattern.
+     *
+     * @param grammar 需要被拆分的字符串。
+     *                <p>
+     *                The string that needs to be get.
+     * @return 每次匹配中所有指定的组按照匹配顺序组成的数组。
+     * <p>
+     * An array of all specified groups in each match in match order.
+     */
+    @Override
+    public String[] get(String grammar) {
+        final TokenSpans spans = TokenSpans.acquire();
+        try {
+            this.get(grammar, spans);
+            return spans.toArray();
+        } finally {
+            spans.release();
+        }
+    }
+
+    /**
+     * 将每次匹配中所有指定的组匹配到的区间按照匹配的顺序写入到缓冲区中，没有参与匹配的组会被忽略，匹配器对象会在当前线程中被复用。
+     * <p>
+     * Write the spans matched by all specified groups in each match into the buffer in match order. Groups that do not participate in the match will be ignored, and the matcher object will be reused in the current thread.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @param spans   用于接收拆分结果的缓冲区，其中原有的数据会被清空。
+     *                <p>
+     *                The buffer used to receive the split result, the original data in it will be cleared.
+     * @return 拆分出来的参数数量。
+     * <p>
+     * The number of split parameters.
+     */
+    @Override
+    public int get(CharSequence grammar, TokenSpans spans) {
+        spans.reset(grammar);
+        final Matcher m = this.matcher.get().reset(grammar);
+        final int count = this.getGroupCount();
+        while (m.find()) {
+            for (int i = 0; i < count; i++) {
+                final int start = this.start(m, i);
+                if (start != -1) {
+                    spans.add(start, this.end(m, i) - start);
+                }
+            }
+        }
+        m.reset("");
+        return spans.size();
+    }
+
+    /**
+     * 创建出一个逐个提取每次匹配中所有指定的组的游标，当前匹配中的组都被取出之后，正则表达式才会向后查找下一次匹配，游标会在当前线程中被复用。
+     * <p>
+     * Create a cursor that extracts all specified groups in each match one by one. The regular expression only searches forward for the next match after all groups in the current match have been taken, and the cursor will be reused in the current thread.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @return 参数游标对象。
+     * <p>
+     * The parameter cursor object.
+     */
+    @Override
+    public TokenCursor cursor(CharSequence grammar) {
+        MultiGroupCursor cursor = this.cursors.get();
+        if (cursor.inUse) {
+            // 当前线程的游标正在被使用 例如执行器中又运行了一个命令
+            cursor = new MultiGroupCursor(this.pattern.matcher(""));
+        }
+        cursor.reset(grammar);
+        return cursor;
+    }
+
+    private final class MultiGroupCursor implements TokenCursor {
+
+        private final Matcher matcher;
+        private CharSequence source;
+        private String token;
+        /**
+         * 当前匹配中下一个需要检查的组，为 -1 的时候代表需要查找下一次匹配
+         */
+        private int index = -1;
+        private boolean inUse;
+
+        MultiGroupCursor(Matcher matcher) {
+            this.matcher = matcher;
+        }
+
+        void reset(CharSequence grammar) {
+            this.matcher.reset(grammar);
+            this.source = grammar;
+            this.index = -1;
+            this.inUse = true;
+        }
+
+        @Override
+        public boolean advance() {
+            final int count = RegularMultiGroupParser.this.getGroupCount();
+            while (true) {
+                if (this.index == -1) {
+                    if (!this.matcher.find()) {
+                        this.token = null;
+                        return false;
+                    }
+                    this.index = 0;
+                }
+                while (this.index < count) {
+                    final int i = this.index++;
+                    final int start = RegularMultiGroupParser.this.start(this.matcher, i);
+                    if (start != -1) {
+                        this.token = this.source.subSequence(start, RegularMultiGroupParser.this.end(this.matcher, i)).toString();
+                        return true;
+                    }
+                }
+                this.index = -1;
+            }
+        }
+
+        @Override
+        public String token() {
+            return this.token;
+        }
+
+        @Override
+        public void close() {
+            this.matcher.reset("");
+            this.source = null;
+            this.token = null;
+            this.inUse = false;
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package zhao.gravel.grammar.core.model;
 
-import java.util.HashMap;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -10,36 +10,32 @@ import java.util.regex.Pattern;
  *
  * @author zhao
  */
-public class RegularParser implements Parser {
+public class RegularParser implements SpanParser {
 
+    protected final String patternStr;
+    protected final Pattern pattern;
     /**
-     * 解析器与匹配模式字符串映射表
+     * 每个线程可重复使用的匹配器对象
      * <p>
-     * Parser and Matching Pattern String Mapping Table
+     * Matcher object that each thread can reuse
      */
-    protected static final HashMap<String, RegularParser> REGULAR_PARSER_HASH_MAP = new HashMap<>();
-
-    protected final String patternStr;
-    protected final Pattern pattern;
+    protected final ThreadLocal<Matcher> matcher;
 
     protected RegularParser(String pattern) {
         this.patternStr = pattern;
         this.pattern = Pattern.compile(pattern);
+        this.matcher = ThreadLocal.withInitial(() -> this.pattern.matcher(""));
     }
 
     /**
-     * 获取到指定匹配模式的解析器对象。
+     * 获取到指定匹配模式的解析器对象，解析器会被缓存在 ParserRegistry 中。
      *
      * @param pattern 匹配模式的字符串
      * @return 解析器
+     * @see ParserRegistry
      */
     public static RegularParser getInstance(String pattern) {
-        RegularParser parser = REGULAR_PARSER_HASH_MAP.get(pattern);
-        if (parser == null) {
-            parser = new RegularParser(pattern);
-            REGULAR_PARSER_HASH_MAP.put(parser.getPattern(), parser);
-        }
-        return parser;
+        return ParserRegistry.get(RegularParser.class, pattern, 0, () -> new RegularParser(pattern));
     }
 
     /**
@@ -68,4 +64,46 @@ public class RegularParser implements Parser {
     public String[] get(String grammar) {
         return this.pattern.split(grammar);
     }
+
+    /**
+     * 将一个语法语句按照正则表达式进行拆分，并将每个参数的区间写入到缓冲区中，拆分规则与 Pattern.split 一致，匹配器对象会在当前线程中被复用。
+     * <p>
+     * Split a grammar statement by the regular expression and write the span of each parameter into the buffer. The splitting rules are consistent with Pattern.split, and the matcher object will be reused in the current thread.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @param spans   用于接收拆分结果的缓冲区，其中原有的数据会被清空。
+     *                <p>
+     *                The buffer used to receive the split result, the original data in it will be cleared.
+     * @return 拆分出来的参数数量。
+     * <p>
+     * The number of split parameters.
+     */
+    @Override
+    public int get(CharSequence grammar, TokenSpans spans) {
+        spans.reset(grammar);
+        final Matcher m = this.matcher.get().reset(grammar);
+        int index = 0;
+        boolean matched = false;
+        while (m.find()) {
+            if (index == 0 && m.start() == 0 && m.end() == 0) {
+                // 起始位置的零宽度匹配不会产生空的参数
+                continue;
+            }
+            matched = true;
+            spans.add(index, m.start() - index);
+            index = m.end();
+        }
+        m.reset("");
+        if (!matched) {
+            spans.add(0, grammar.length());
+            return 1;
+        }
+        spans.add(index, grammar.length() - index);
+        while (spans.size() > 0 && spans.length(spans.size() - 1) == 0) {
+            spans.removeLast();
+        }
+        return spans.size();
+    }
 }
@@ -0,0 +1,28 @@
+package zhao.gravel.grammar.core.model;
+
+/**
+ * 区间解析器对象接口，其能够在不创建任何子字符串的情况下拆分语句，拆分的结果以 (offset, length) 的方式写入到可复用的缓冲区中。
+ * <p>
+ * The span parser object interface, which can split statements without creating any substrings. The result of splitting is written into a reusable buffer as (offset, length).
+ *
+ * @author zhao
+ */
+public interface SpanParser extends Parser {
+
+    /**
+     * 将一个语法语句按照指定的匹配模式进行拆分，并将每个参数的区间写入到缓冲区中。
+     * <p>
+     * Split a grammar statement according to the specified matching pattern and write the span of each parameter into the buffer.
+     *
+     * @param grammar 需要被拆分的字符序列。
+     *                <p>
+     *                The character sequence that needs to be split.
+     * @param spans   用于接收拆分结果的缓冲区，其中原有的数据会被清空。
+     *                <p>
+     *                The buffer used to receive the split result, the original data in it will be cleared.
+     * @return 拆分出来的参数数量。
+     * <p>
+     * The number of split parameters.
+     */
+    int get(CharSequence grammar, TokenSpans spans);
+}
@@ -0,0 +1,210 @@
+package zhao.gravel.grammar.core.model;
+
+import java.util.ArrayList;
+
+/**
+ * 手写的 SQL 词法解析器，其只需要对语句进行一次线性的扫描，就可以将 SQL 语句拆分成为关键字与关键字之间的子句，拆分结果与 BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1 在 REGULAR_MODEL_1 模式下的结果一致。
+ * <p>
+ * A hand-written SQL lexer, which only needs one linear scan of the statement to split the SQL statement into keywords and the clauses between keywords. The result is consistent with BuiltInReg.SQL_EXTRACTION_REGULAR_MODEL_1 in REGULAR_MODEL_1 mode.
+ * <p>
+ * PS：关键字只有在前后都是空白字符的时候才会被识别，并且会被规范化为小写的形式，例如 "ORDER   BY" 会被拆分为 "order by"，引号中的内容不会被识别为关键字，子句中的数字、运算符以及逗号列表会原样保留。
+ *
+ * @author zhao
+ */
+public final class SqlLexer implements LazyParser {
+
+    /**
+     * 当前解析器能够识别的关键字，多个单词组成的关键字中间使用一个空格分隔
+     * <p>
+     * The keywords that the current parser can recognize. Words in multi-word keywords are separated by a single space
+     */
+    private static final String[] KEYWORDS = {"select", "from", "where", "group by", "order by", "limit"};
+
+    private static final SqlLexer INSTANCE = new SqlLexer();
+
+    private SqlLexer() {
+    }
+
+    /**
+     * @return SQL 词法解析器对象，此解析器是无状态的，因此所有的回调器会共享同一个对象。
+     * <p>
+     * The SQL lexer object. This parser is stateless, so all callbacks share the same object.
+     */
+    public static SqlLexer getInstance() {
+        return INSTANCE;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    /**
+     * @param grammar 需要被扫描的语句。
+     * @param offset  关键字可能出现的起始位置，调用者需要保证此位置之前是空白字符或者语句的开头。
+     * @return 从 offset 开始匹配到的关键字在 KEYWORDS 中的索引，没有匹配到时返回 -1，匹配到的关键字的结束位置会被写入到 end[0] 中。
+     */
+    private static int keywordAt(CharSequence grammar, int offset, int[] end) {
+        final int length = grammar.length();
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            final String keyword = KEYWORDS[k];
+            int i = offset, j = 0;
+            while (j < keyword.length() && i < length) {
+                final char expected = keyword.charAt(j);
+                if (expected == ' ') {
+                    // 关键字中的空格可以匹配一个或多个空白字符
+                    if (!isSpace(grammar.charAt(i))) {
+                        break;
+                    }
+                    while (i < length && isSpace(grammar.charAt(i))) {
+                        i++;
+                    }
+                    j++;
+                } else if ((grammar.charAt(i) | 0x20) == expected) {
+                    i++;
+                    j++;
+                } else {
+                    break;
+                }
+            }
+            if (j == keyword.length() && (i == length || isSpace(grammar.charAt(i)))) {
+                end[0] = i;
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param grammar 需要被扫描的语句。
+     * @param offset  引号所在的位置。
+     * @return 引号中的内容结束之后的位置，引号中可以使用反斜杠或连续两个引号进行转义，没有结束的引号会一直延续到语句的末尾。
+     */
+    private static int skipQuoted(CharSequence grammar, int offset) {
+        final char quote = grammar.charAt(offset);
+        final int length = grammar.length();
+        int i = offset + 1;
+        while (i < length) {
+            final char c = grammar.charAt(i++);
+            if (c == '\\' && i < length) {
+                i++;
+            } else if (c == quote) {
+                if (i < length && grammar.charAt(i) == quote) {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public String getPattern() {
+        return "SQL_LEXER";
+    }
+
+    /**
+     * 将一个 SQL 语句拆分成为关键字与子句。
+     * <p>
+     * Split a SQL statement into keywords and clauses.
+     *
+     * @param grammar 需要被拆分的 SQL 语句。
+     *                <p>
+     *                The SQL statement that needs to be split.
+     * @return 拆分之后的关键字与子句，子句两端的空白字符会被去除。
+     * <p>
+     * The keywords and clauses after splitting, and the whitespace at both ends of the clauses will be removed.
+     */
+    @Override
+    public String[] get(String grammar) {
+        final ArrayList<String> tokens = new ArrayList<>(8);
+        final Cursor cursor = new Cursor(grammar);
+        while (cursor.advance()) {
+            tokens.add(cursor.token);
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * 创建出一个逐个拆分 SQL 关键字与子句的游标，每次调用 advance 的时候只会扫描到下一个参数的结束位置。
+     * <p>
+     * Create a cursor that splits SQL keywords and clauses one by one. Each call to advance only scans to the end of the next parameter.
+     *
+     * @param grammar 需要被拆分的 SQL 语句。
+     *                <p>
+     *                The SQL statement that needs to be split.
+     * @return 参数游标对象。
+     * <p>
+     * The parameter cursor object.
+     */
+    @Override
+    public TokenCursor cursor(CharSequence grammar) {
+        return new Cursor(grammar);
+    }
+
+    private static final class Cursor implements TokenCursor {
+
+        private final CharSequence grammar;
+        private final int[] end = new int[1];
+        private int index;
+        /**
+         * 扫描子句的时候遇到的关键字，会在下一次调用 advance 的时候返回
+         */
+        private int pendingKeyword = -1;
+        private String token;
+
+        Cursor(CharSequence grammar) {
+            this.grammar = grammar;
+        }
+
+        @Override
+        public boolean advance() {
+            if (this.pendingKeyword != -1) {
+                this.token = KEYWORDS[this.pendingKeyword];
+                this.pendingKeyword = -1;
+                return true;
+            }
+            final CharSequence grammar = this.grammar;
+            final int length = grammar.length();
+            int clauseStart = -1, clauseEnd = -1;
+            int i = this.index;
+            while (i < length) {
+                final char c = grammar.charAt(i);
+                if (isSpace(c)) {
+                    i++;
+                    continue;
+                }
+                if (i == 0 || isSpace(grammar.charAt(i - 1))) {
+                    final int keyword = keywordAt(grammar, i, this.end);
+                    if (keyword != -1) {
+                        this.index = this.end[0];
+                        if (clauseStart != -1) {
+                            this.pendingKeyword = keyword;
+                            this.token = grammar.subSequence(clauseStart, clauseEnd).toString();
+                        } else {
+                            this.token = KEYWORDS[keyword];
+                        }
+                        return true;
+                    }
+                }
+                if (clauseStart == -1) {
+                    clauseStart = i;
+                }
+                i = c == '\'' || c == '"' || c == '`' ? skipQuoted(grammar, i) : i + 1;
+                clauseEnd = i;
+            }
+            this.index = length;
+            if (clauseStart != -1) {
+                this.token = grammar.subSequence(clauseStart, clauseEnd).toString();
+                return true;
+            }
+            this.token = null;
+            return false;
+        }
+
+        @Override
+        public String token() {
+            return this.token;
+        }
+    }
+}
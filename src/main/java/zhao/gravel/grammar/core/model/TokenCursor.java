@@ -0,0 +1,40 @@
+package zhao.gravel.grammar.core.model;
+
+/**
+ * 参数游标对象接口，其会在每次调用 advance 的时候才拆分出下一个参数，因此匹配过程可以在结果确定之后立即停止拆分，剩余的命令不会被处理。
+ * <p>
+ * The parameter cursor object interface, which splits the next parameter only each time advance is called. Therefore, the matching process can stop splitting as soon as the result is determined, and the rest of the command will not be processed.
+ * <p>
+ * PS：游标使用完毕之后需要调用 close 归还其中可以被复用的资源。
+ *
+ * @author zhao
+ */
+public interface TokenCursor extends AutoCloseable {
+
+    /**
+     * 拆分出下一个参数。
+     * <p>
+     * Split the next parameter.
+     *
+     * @return 如果还有参数就返回 true，此时可以通过 token() 获取到它。
+     * <p>
+     * Returns true if there are more parameters, in which case it can be obtained through token().
+     */
+    boolean advance();
+
+    /**
+     * @return 最近一次调用 advance 拆分出来的参数。
+     * <p>
+     * The parameter split by the most recent call to advance.
+     */
+    String token();
+
+    /**
+     * 归还当前游标中可以被复用的资源，默认情况下不会进行任何操作。
+     * <p>
+     * Return the reusable resources in the current cursor. By default nothing is done.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,216 @@
+package zhao.gravel.grammar.core.model;
+
+import java.util.Arrays;
+
+/**
+ * 可重复使用的参数区间缓冲区，解析器会将拆分出来的每个参数以 (offset, length) 的方式记录在这里，而不是为每个参数创建一个新的字符串。
+ * <p>
+ * A reusable parameter span buffer. The parser records each split parameter here as (offset, length) instead of creating a new string for each parameter.
+ * <p>
+ * PS：每个线程都可以通过 acquire 获取到属于自己的缓冲区，使用完毕之后需要调用 release 归还。
+ *
+ * @author zhao
+ */
+public final class TokenSpans {
+
+    private static final ThreadLocal<TokenSpans> LOCAL = ThreadLocal.withInitial(TokenSpans::new);
+
+    private final Window window = new Window();
+    private CharSequence source;
+    private int[] offsets;
+    private int[] lengths;
+    private int size;
+    private boolean inUse;
+
+    public TokenSpans() {
+        this.offsets = new int[16];
+        this.lengths = new int[16];
+    }
+
+    /**
+     * 获取到当前线程可重复使用的缓冲区，如果当前线程的缓冲区正在被使用（例如执行器中又运行了一个命令），则会返回一个新的缓冲区。
+     * <p>
+     * Obtain the reusable buffer of the current thread. If the buffer of the current thread is in use (for example, another command is run in the executor), a new buffer will be returned.
+     *
+     * @return 可以使用的参数区间缓冲区。
+     * <p>
+     * Parameter span buffer that can be used.
+     */
+    public static TokenSpans acquire() {
+        final TokenSpans spans = LOCAL.get();
+        if (spans.inUse) {
+            return new TokenSpans();
+        }
+        spans.inUse = true;
+        return spans;
+    }
+
+    /**
+     * 归还当前缓冲区，归还之后缓冲区中不会再引用原始的字符序列。
+     * <p>
+     * Return the current buffer, after which the buffer will no longer reference the original character sequence.
+     */
+    public void release() {
+        this.source = null;
+        this.size = 0;
+        this.inUse = false;
+    }
+
+    /**
+     * 清空当前缓冲区，并设置新的原始字符序列。
+     * <p>
+     * Clear the current buffer and set a new original character sequence.
+     *
+     * @param source 参数区间所对应的原始字符序列。
+     *               <p>
+     *               The original character sequence corresponding to the parameter spans.
+     */
+    public void reset(CharSequence source) {
+        this.source = source;
+        this.size = 0;
+    }
+
+    /**
+     * 追加一个参数区间。
+     * <p>
+     * Append a parameter span.
+     *
+     * @param offset 参数在原始字符序列中的起始位置。
+     *               <p>
+     *               The starting position of the parameter in the original character sequence.
+     * @param length 参数的长度。
+     *               <p>
+     *               The length of the parameter.
+     */
+    public void add(int offset, int length) {
+        if (this.size == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.size << 1);
+            this.lengths = Arrays.copyOf(this.lengths, this.size << 1);
+        }
+        this.offsets[this.size] = offset;
+        this.lengths[this.size++] = length;
+    }
+
+    /**
+     * 将最后一个参数区间移除。
+     * <p>
+     * Remove the last parameter span.
+     */
+    public void removeLast() {
+        this.size--;
+    }
+
+    /**
+     * @return 参数区间的数量。
+     * <p>
+     * The number of parameter spans.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return 参数区间所对应的原始字符序列。
+     * <p>
+     * The original character sequence corresponding to the parameter spans.
+     */
+    public CharSequence source() {
+        return this.source;
+    }
+
+    /**
+     * @param index 参数区间的索引。
+     * @return 参数在原始字符序列中的起始位置。
+     */
+    public int offset(int index) {
+        return this.offsets[index];
+    }
+
+    /**
+     * @param index 参数区间的索引。
+     * @return 参数的长度。
+     */
+    public int length(int index) {
+        return this.lengths[index];
+    }
+
+    /**
+     * 获取到指定索引的参数，返回的字符序列是原始字符序列上的一个窗口，其会在下一次调用此函数的时候被复用，因此不应被保存。
+     * <p>
+     * Obtain the parameter at the specified index. The returned character sequence is a window on the original character sequence, which will be reused the next time this function is called, so it should not be saved.
+     *
+     * @param index 参数区间的索引。
+     *              <p>
+     *              The index of the parameter span.
+     * @return 参数对应的字符序列窗口。
+     * <p>
+     * The character sequence window corresponding to the parameter.
+     */
+    public CharSequence token(int index) {
+        return this.window.set(this.source, this.offsets[index], this.lengths[index]);
+    }
+
+    /**
+     * @param index 参数区间的索引。
+     *              <p>
+     *              The index of the parameter span.
+     * @return 参数对应的字符串，此操作会创建一个新的字符串。
+     * <p>
+     * The string corresponding to the parameter, this operation will create a new string.
+     */
+    public String toString(int index) {
+        final int offset = this.offsets[index];
+        return this.source.subSequence(offset, offset + this.lengths[index]).toString();
+    }
+
+    /**
+     * @return 所有参数组成的字符串数组。
+     * <p>
+     * An array of strings consisting of all parameters.
+     */
+    public String[] toArray() {
+        final String[] res = new String[this.size];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = this.toString(i);
+        }
+        return res;
+    }
+
+    /**
+     * 原始字符序列上的一个可复用的窗口。
+     * <p>
+     * A reusable window on the original character sequence.
+     */
+    private static final class Window implements CharSequence {
+        private CharSequence source;
+        private int offset;
+        private int length;
+
+        Window set(CharSequence source, int offset, int length) {
+            this.source = source;
+            this.offset = offset;
+            this.length = length;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return this.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return this.source.charAt(this.offset + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return this.source.subSequence(this.offset + start, this.offset + end);
+        }
+
+        @Override
+        public String toString() {
+            return this.source.subSequence(this.offset, this.offset + this.length).toString();
+        }
+    }
+}